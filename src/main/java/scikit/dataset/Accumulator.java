@@ -8,6 +8,8 @@ import scikit.dataset.Bin;
 public class Accumulator extends DataSet {	
 	protected double _binWidth;
 	private SortedMap<Double, Bin> _hash;
+	private BinArray _array; // non-null in fixed width mode
+	private boolean _blocking = false;
     private boolean _errorBars = false;
     
 	public Accumulator() {
@@ -15,38 +17,73 @@ public class Accumulator extends DataSet {
 	}
 	
 	public Accumulator(double binWidth) {
+		this(binWidth, false);
+	}
+
+	/**
+	 * Creates an accumulator with bins of width binWidth. In fixed width mode
+	 * the bins are stored in primitive arrays indexed by rint(x/binWidth), so that
+	 * accum() does no boxing, tree lookups or allocation. Fixed width mode is
+	 * appropriate when the accumulated x values span a bounded range of bins.
+	 */
+	public Accumulator(double binWidth, boolean fixedWidth) {
 		_hash = new TreeMap<Double, Bin>();
 		_binWidth = binWidth;
+		if (fixedWidth)
+			_array = new BinArray(binWidth);
 	}
 
 	public Accumulator(Accumulator that, double binWidth) {
-		this(binWidth);
+		this(binWidth, that._array != null && binWidth > 0);
 		_errorBars = that._errorBars;
-		
-		for (Double k : that.keys()) {
-			Bin v1 = _hash.get(k);
-			Bin v2 = that._hash.get(k);
-			if (v1 == null) {
-				v1 = new Bin();
-				v1.accum(v2);
-				_hash.put(key(k), v1);
-			}
-			else {
-				v1.accum(v2);
-			}
-		}
+		if (that._blocking)
+			enableBlocking(true);
+		addBins(that);
 	}
 	
 	public void enableErrorBars(boolean errorBars) {
 		_errorBars = true;
 	}
 	
+	/**
+	 * Enables the blocking analysis of Flyvbjerg and Petersen in every bin, so that
+	 * evalError() accounts for correlations between successive accumulated values.
+	 * Should be called before any values are accumulated. Disabling it in fixed
+	 * width mode discards the blocking statistics; in tree mode, bins which
+	 * already exist keep them.
+	 */
+	public void enableBlocking(boolean blocking) {
+		if (_array != null)
+			_array.enableBlocking(blocking);
+		_blocking = blocking;
+	}
+	
+	public boolean isFixedWidth() {
+		return _array != null;
+	}
+
 	public void clear() {
+		invalidateBounds();
 		_hash = new TreeMap<Double, Bin>();
+		if (_array != null)
+			_array.clear();
 	}
 	
 	public DatasetBuffer copyData() {
 		DatasetBuffer ret = new DatasetBuffer();
+		ret._sorted = true; // the keys are in increasing order in both modes
+		if (_array != null) {
+			ret._x = _array.keys();
+			ret._y = new double[ret._x.length];
+			if (_errorBars)
+				ret._errY = new double[ret._x.length];
+			for (int i = 0; i < ret._x.length; i++) {
+				ret._y[i] = eval(ret._x[i]);
+				if (_errorBars)
+					ret._errY[i] = evalError(ret._x[i]);
+			}
+			return ret;
+		}
 		ret._x = new double[_hash.size()];
 		ret._y = new double[_hash.size()];
 		if (_errorBars)
@@ -63,6 +100,12 @@ public class Accumulator extends DataSet {
 	}
 	
 	public Set<Double> keys() {
+		if (_array != null) {
+			SortedSet<Double> ret = new TreeSet<Double>();
+			for (double k : _array.keys())
+				ret.add(k);
+			return ret;
+		}
 		return _hash.keySet();
 	}
 	
@@ -74,24 +117,53 @@ public class Accumulator extends DataSet {
 	}
 	
 	public double eval(double x) {
+		if (_array != null)
+			return _array.eval(x);
 		Bin val = _hash.get(key(x));
 		return (val == null) ? Double.NaN : val.average();
 	}
 	
 	public double evalCount(double x) {
+		if (_array != null)
+			return _array.evalCount(x);
 		Bin val = _hash.get(key(x));
 		return (val == null) ? Double.NaN : val.count();		
 	}
 	
 	public double evalError(double x) {
+		if (_array != null)
+			return _array.evalError(x);
 		Bin val = _hash.get(key(x));
 		return (val == null) ? Double.NaN : val.error();		
 	}
 	
+	/**
+	 * Returns the error estimate of the bin containing x at every blocking level,
+	 * where level k averages blocks of 2^k values. Requires enableBlocking().
+	 */
+	public double[] evalBlockingErrors(double x) {
+		Bin val = bin(x);
+		return (val instanceof BlockingBin) ? ((BlockingBin)val).errors() : new double[0];
+	}
+	
+	/**
+	 * Returns the integrated autocorrelation time of the values accumulated in the
+	 * bin containing x. Requires enableBlocking().
+	 */
+	public double evalCorrelationTime(double x) {
+		Bin val = bin(x);
+		return (val instanceof BlockingBin) ? ((BlockingBin)val).correlationTime() : Double.NaN;
+	}
+	
 	public void accum(double x, double y) {
+		invalidateBounds();
+		if (_array != null) {
+			_array.accum(x, y);
+			return;
+		}
 		Bin val = _hash.get(key(x));
 		if (val == null) {
-			val = new Bin();
+			val = newBin();
 			val.accum(y);
 			_hash.put(key(x), val);
 		}
@@ -100,6 +172,51 @@ public class Accumulator extends DataSet {
 		}
 	}
 	
+	/**
+	 * Adds all bins of that accumulator into this one, rebinning according
+	 * to this accumulator's bin width. If blocking is enabled here, it must be
+	 * enabled in that accumulator too, or IllegalArgumentException is thrown.
+	 */
+	public void accum(Accumulator that) {
+		invalidateBounds();
+		addBins(that);
+	}
+	
+	private void addBins(Accumulator that) {
+		for (Double k : that.keys()) {
+			Bin v2 = that.bin(k);
+			if (_array != null) {
+				_array.accum(k, v2);
+				continue;
+			}
+			Bin v1 = _hash.get(key(k));
+			if (v1 == null) {
+				v1 = newBin();
+				v1.accum(v2);
+				_hash.put(key(k), v1);
+			}
+			else {
+				v1.accum(v2);
+			}
+		}
+	}
+	
+	protected boolean cachesBounds() {
+		return true;
+	}
+	
+	// returns the bin containing x, or null if no values have been accumulated there.
+	// in fixed width mode the returned bin is a snapshot.
+	Bin bin(double x) {
+		if (_array != null)
+			return _array.bin(x);
+		return _hash.get(key(x));
+	}
+
+	private Bin newBin() {
+		return _blocking ? new BlockingBin() : new Bin();
+	}
+	
 	// key() gives the unique hash for every bin. it is the double value representing
 	// the center of the bin.
 	private double key(double x) {
@@ -2,39 +2,58 @@ package scikit.dataset;
 
 import static java.lang.Math.sqrt;
 
+// Accumulates the running mean and central moments of a stream of values using
+// Welford's update, which stays accurate over very long runs where the naive
+// sum/sum2 formula loses all precision. Two bins can be merged exactly, so that
+// per-thread bins may be combined without loss.
 public class Bin {
-	private double sum = 0;
-	private double sum2 = 0;
-	private int count = 0;
+	// number of doubles of state per bin: mean, M2, M3, M4, where Mk is the
+	// sum of (value - mean)^k
+	static final int MOMENTS = 4;
+
+	private double[] m = new double[MOMENTS];
+	private long count = 0;
+	
+	public Bin() {}
+	
+	Bin(double[] moments, int i, long count) {
+		System.arraycopy(moments, i, m, 0, MOMENTS);
+		this.count = count;
+	}
 	
 	public void accum(Bin that) {
-		sum += that.sum;
-		sum2 += that.sum2;
+		accum(m, 0, count, that.m, 0, that.count);
 		count += that.count;
 	}
 	
 	public void accum(double value) {
-		sum += value;
-		sum2 += value*value;
+		accum(m, 0, count, value);
 		count += 1;
 	}
 	
 	public double sum() {
-		return sum;
+		return m[0] * count;
 	}
-
-	public int count() {
+	
+	public long count() {
 		return count;
 	}
 	
 	public double average() {
-		return sum / count;
+		return count == 0 ? Double.NaN : m[0];
 	}
 	
 	public double variance() {
-		double s1 = sum / count;
-		double s2 = sum2 / count;
-		return s2 - s1*s1;
+		return m[1] / count;
+	}
+
+	public double skewness() {
+		return sqrt(count) * m[2] / (m[1] * sqrt(m[1]));
+	}
+
+	// excess kurtosis, which vanishes for a gaussian distribution
+	public double kurtosis() {
+		return count * m[3] / (m[1] * m[1]) - 3;
 	}
 	
 	// return the standard error correspond to the average() value.
@@ -43,4 +62,45 @@ public class Bin {
 	public double error() {
 		return sqrt(variance() / count);
 	}
+
+	// merges this bin into the moments of n values stored at ma[ia..]
+	void mergeInto(double[] ma, int ia, long n) {
+		accum(ma, ia, n, m, 0, count);
+	}
+
+	// adds value to the moments stored at m[i..i+MOMENTS), which currently
+	// describe n values
+	static void accum(double[] m, int i, long n, double value) {
+		double n1 = n + 1;
+		double delta = value - m[i];
+		double dn = delta / n1;
+		double dn2 = dn * dn;
+		double term = delta * dn * n;
+		m[i+0] += dn;
+		m[i+3] += term * dn2 * (n1*n1 - 3*n1 + 3) + 6 * dn2 * m[i+1] - 4 * dn * m[i+2];
+		m[i+2] += term * dn * (n1 - 2) - 3 * dn * m[i+1];
+		m[i+1] += term;
+	}
+
+	// merges the moments of nb values stored at mb[ib..] into the moments of
+	// na values stored at ma[ia..], using the pairwise update formulas
+	static void accum(double[] ma, int ia, long na, double[] mb, int ib, long nb) {
+		if (nb == 0)
+			return;
+		if (na == 0) {
+			System.arraycopy(mb, ib, ma, ia, MOMENTS);
+			return;
+		}
+		double a = na, b = nb, n = a + b;
+		double delta = mb[ib] - ma[ia];
+		double dn = delta / n;
+		double dn2 = dn * dn;
+		double m2a = ma[ia+1], m2b = mb[ib+1];
+		double m3a = ma[ia+2], m3b = mb[ib+2];
+		ma[ia+0] += b * dn;
+		ma[ia+3] += mb[ib+3] + delta * dn * dn2 * a * b * (a*a - a*b + b*b)
+				+ 6 * dn2 * (a*a*m2b + b*b*m2a) + 4 * dn * (a*m3b - b*m3a);
+		ma[ia+2] += m3b + delta * dn2 * a * b * (a - b) + 3 * dn * (a*m2b - b*m2a);
+		ma[ia+1] += m2b + delta * dn * a * b;
+	}
 }
@@ -0,0 +1,183 @@
+package scikit.dataset;
+
+import static java.lang.Math.*;
+
+// Fixed width bins stored in parallel primitive arrays. Bin i is centered at
+// i*binWidth and lives in slot (i - _offset). The arrays grow in whichever
+// direction is needed, so that accum() does no allocation once the range of
+// accumulated x values has been seen.
+class BinArray {
+	private double _binWidth;
+	private int _offset;
+	private double[] _moments; // Bin.MOMENTS values per slot
+	private long[] _count;
+	private int _occupied;
+	private BlockingBin[] _blocking; // non-null when blocking error analysis is enabled
+
+	public BinArray(double binWidth) {
+		if (!(binWidth > 0))
+			throw new IllegalArgumentException("Bin width must be positive.");
+		_binWidth = binWidth;
+		clear();
+	}
+
+	public void clear() {
+		_offset = 0;
+		_moments = new double[16*Bin.MOMENTS];
+		_count = new long[16];
+		_occupied = 0;
+		if (_blocking != null)
+			_blocking = new BlockingBin[16];
+	}
+
+	// tracks the blocking error of every bin. bins which already hold values
+	// keep their IID error estimate. disabling discards the blocking statistics.
+	public void enableBlocking(boolean blocking) {
+		if (!blocking)
+			_blocking = null;
+		else if (_blocking == null)
+			_blocking = new BlockingBin[_count.length];
+	}
+
+	public double binWidth() {
+		return _binWidth;
+	}
+
+	// number of bins that have accumulated at least one value
+	public int size() {
+		return _occupied;
+	}
+
+	public void accum(double x, double y) {
+		int j = slot(x);
+		if (j < 0 || j >= _count.length) {
+			grow(index(x));
+			j = slot(x);
+		}
+		if (_count[j] == 0)
+			_occupied++;
+		Bin.accum(_moments, j*Bin.MOMENTS, _count[j], y);
+		_count[j] += 1;
+		if (_blocking != null)
+			blockingSlot(j).accum(y);
+	}
+
+	public void accum(double x, Bin that) {
+		if (that.count() == 0)
+			return;
+		if (_blocking != null && !(that instanceof BlockingBin))
+			throw new IllegalArgumentException("Cannot merge a Bin without blocking statistics.");
+		int j = slot(x);
+		if (j < 0 || j >= _count.length) {
+			grow(index(x));
+			j = slot(x);
+		}
+		if (_count[j] == 0)
+			_occupied++;
+		that.mergeInto(_moments, j*Bin.MOMENTS, _count[j]);
+		_count[j] += that.count();
+		if (_blocking != null)
+			blockingSlot(j).accum(that);
+	}
+
+	public double eval(double x) {
+		int j = slot(x);
+		return (j < 0 || j >= _count.length || _count[j] == 0) ? Double.NaN : _moments[j*Bin.MOMENTS];
+	}
+
+	public double evalCount(double x) {
+		int j = slot(x);
+		return (j < 0 || j >= _count.length || _count[j] == 0) ? Double.NaN : _count[j];
+	}
+
+	public double evalError(double x) {
+		int j = slot(x);
+		return (j < 0 || j >= _count.length || _count[j] == 0) ? Double.NaN : error(j);
+	}
+
+	// returns a snapshot of the bin containing x, or null if it is empty. when
+	// blocking is enabled, the blocking bin itself is returned.
+	public Bin bin(double x) {
+		int j = slot(x);
+		if (j < 0 || j >= _count.length || _count[j] == 0)
+			return null;
+		if (_blocking != null && _blocking[j] != null)
+			return _blocking[j];
+		return new Bin(_moments, j*Bin.MOMENTS, _count[j]);
+	}
+
+	// centers of all occupied bins, in increasing order
+	public double[] keys() {
+		double[] ret = new double[_occupied];
+		int i = 0;
+		for (int j = 0; j < _count.length; j++)
+			if (_count[j] > 0)
+				ret[i++] = key(j);
+		return ret;
+	}
+
+	private double error(int j) {
+		if (_blocking != null && _blocking[j] != null)
+			return _blocking[j].error();
+		// the same operations as Bin.error(), so that both modes agree exactly
+		double variance = _moments[j*Bin.MOMENTS+1] / _count[j];
+		return sqrt(variance / _count[j]);
+	}
+
+	private BlockingBin blockingSlot(int j) {
+		if (_blocking[j] == null)
+			_blocking[j] = new BlockingBin();
+		return _blocking[j];
+	}
+
+	private double key(int j) {
+		double k = _binWidth * (j + _offset);
+		return k == -0 ? +0 : k;
+	}
+
+	private long index(double x) {
+		double i = rint(x / _binWidth);
+		if (!(abs(i) < Integer.MAX_VALUE / 2))
+			throw new IllegalArgumentException("Value " + x + " is out of range for bin width " + _binWidth + ".");
+		return (long)i;
+	}
+
+	private int slot(double x) {
+		return (int)(index(x) - _offset);
+	}
+
+	// resizes the arrays so that bin index i fits, at least doubling capacity
+	private void grow(long i) {
+		int n = _count.length;
+		if (_occupied == 0) {
+			// nothing to preserve; recenter the empty arrays on the new bin
+			_offset = (int)i - n/2;
+			return;
+		}
+		int lo = (int)min(i, _offset);
+		int hi = (int)max(i+1, _offset + n);
+		int capacity = max(2*n, hi - lo);
+		// place the new bin index at the end of the array that it extends
+		int offset = (i < _offset) ? hi - capacity : lo;
+		_moments = shifted(_moments, capacity*Bin.MOMENTS, (_offset - offset)*Bin.MOMENTS);
+		_count = shifted(_count, capacity, _offset - offset);
+		if (_blocking != null) {
+			BlockingBin[] b = new BlockingBin[capacity];
+			System.arraycopy(_blocking, 0, b, _offset - offset, _blocking.length);
+			_blocking = b;
+		}
+		_offset = offset;
+	}
+
+	private static double[] shifted(double[] a, int capacity, int shift) {
+		double[] ret = new double[capacity];
+		System.arraycopy(a, 0, ret, shift, a.length);
+		return ret;
+	}
+
+	private static long[] shifted(long[] a, int capacity, int shift) {
+		long[] ret = new long[capacity];
+		System.arraycopy(a, 0, ret, shift, a.length);
+		return ret;
+	}
+}
@@ -0,0 +1,135 @@
+package scikit.dataset;
+
+import static java.lang.Math.sqrt;
+
+// A bin which estimates the error of correlated samples, such as an MCMC time
+// series, using the blocking method of Flyvbjerg and Petersen. Incoming values
+// are averaged pairwise into blocks of size 1, 2, 4, 8, ... as they arrive, and
+// the moments of the block averages are tracked at every level. Memory grows as
+// O(log N) and no second pass over the data is needed.
+public class BlockingBin extends Bin {
+	// minimum number of blocks for a level's error estimate to be trusted
+	static final int MIN_BLOCKS = 16;
+
+	private int levels = 0;
+	private double[] blocks = new double[0];      // moments of block averages, MOMENTS per level
+	private long[] blockCounts = new long[0];
+	private double[] pending = new double[0];     // first half of the next block at each level
+	private boolean[] hasPending = new boolean[0];
+
+	public void accum(double value) {
+		super.accum(value);
+		for (int k = 0; ; k++) {
+			ensureLevel(k);
+			Bin.accum(blocks, k*MOMENTS, blockCounts[k], value);
+			blockCounts[k] += 1;
+			if (!hasPending[k]) {
+				pending[k] = value;
+				hasPending[k] = true;
+				return;
+			}
+			value = (pending[k] + value) / 2;
+			hasPending[k] = false;
+		}
+	}
+
+	// merges the block statistics of that bin level by level. partially filled
+	// blocks of that bin are dropped. a plain Bin has no block statistics to
+	// merge, so that only empty ones are accepted.
+	public void accum(Bin that) {
+		if (!(that instanceof BlockingBin)) {
+			if (that.count() == 0)
+				return;
+			throw new IllegalArgumentException("Cannot merge a Bin without blocking statistics.");
+		}
+		super.accum(that);
+		BlockingBin b = (BlockingBin)that;
+		for (int k = 0; k < b.levels; k++) {
+			ensureLevel(k);
+			Bin.accum(blocks, k*MOMENTS, blockCounts[k], b.blocks, k*MOMENTS, b.blockCounts[k]);
+			blockCounts[k] += b.blockCounts[k];
+		}
+	}
+
+	/** Returns the number of blocking levels; level k has blocks of size 2^k. */
+	public int levels() {
+		return levels;
+	}
+
+	/** Returns the number of complete blocks at level k. */
+	public long blockCount(int k) {
+		return blockCounts[k];
+	}
+
+	/** Returns the standard error of the average estimated from the blocks at level k. */
+	public double error(int k) {
+		long n = blockCounts[k];
+		return (n < 2) ? Double.NaN : sqrt(blocks[k*MOMENTS+1] / n / (n - 1));
+	}
+
+	/** Returns the uncertainty of error(k) itself. */
+	public double errorOfError(int k) {
+		return error(k) / sqrt(2 * (blockCounts[k] - 1));
+	}
+
+	/** Returns the error estimates at every blocking level. */
+	public double[] errors() {
+		double[] ret = new double[levels];
+		for (int k = 0; k < levels; k++)
+			ret[k] = error(k);
+		return ret;
+	}
+
+	/**
+	 * Returns the blocking level at which the error estimate reaches its plateau,
+	 * i.e. the first level whose error agrees with the next level's to within its
+	 * own uncertainty. If no plateau is visible yet, returns the deepest level with
+	 * at least MIN_BLOCKS blocks, whose estimate is then a lower bound.
+	 */
+	public int plateauLevel() {
+		int ret = 0;
+		for (int k = 0; k < levels && blockCounts[k] >= MIN_BLOCKS; k++) {
+			ret = k;
+			if (k+1 < levels && blockCounts[k+1] >= MIN_BLOCKS && error(k+1) - error(k) < errorOfError(k))
+				break;
+		}
+		return ret;
+	}
+
+	// return the standard error corresponding to the average() value, accounting for
+	// correlations between successive values.
+	public double error() {
+		return (levels == 0) ? super.error() : error(plateauLevel());
+	}
+
+	/**
+	 * Returns the integrated autocorrelation time in units of the sample spacing,
+	 * defined so that error()^2 = 2 tau variance() / count(). Uncorrelated samples
+	 * give tau = 1/2.
+	 */
+	public double correlationTime() {
+		double r = error() / error(0);
+		return r * r / 2;
+	}
+
+	private void ensureLevel(int k) {
+		if (k < levels)
+			return;
+		if (k >= blockCounts.length) {
+			int capacity = Math.max(8, 2 * blockCounts.length);
+			double[] b = new double[capacity * MOMENTS];
+			System.arraycopy(blocks, 0, b, 0, blocks.length);
+			blocks = b;
+			long[] c = new long[capacity];
+			System.arraycopy(blockCounts, 0, c, 0, blockCounts.length);
+			blockCounts = c;
+			double[] p = new double[capacity];
+			System.arraycopy(pending, 0, p, 0, pending.length);
+			pending = p;
+			boolean[] h = new boolean[capacity];
+			System.arraycopy(hasPending, 0, h, 0, hasPending.length);
+			hasPending = h;
+		}
+		levels = k + 1;
+	}
+}
@@ -0,0 +1,291 @@
+package scikit.dataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * An array of doubles, like DynamicArray, which stores its elements outside of the
+ * Java heap in fixed size chunks. Growing the array allocates a new chunk and never
+ * copies existing data. The chunks are either direct buffers or, when a file is
+ * given, regions of a memory mapped file. In the latter case the logged data
+ * survives a crash of the JVM and is recovered by reopening the file.
+ */
+public class ChunkedArray extends PairArray {
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+	// file header: MAGIC, number of elements, then chunk size, as little endian longs
+	private static final int HEADER_BYTES = 24;
+	private static final long MAGIC = 0x31595252414b4843L; // "CHKARRY1"
+
+	private int _chunkBits;
+	private ArrayList<ByteBuffer> _buffers = new ArrayList<ByteBuffer>();
+	private DoubleBuffer[] _chunks = new DoubleBuffer[0];
+	private long _length = 0;
+	private RandomAccessFile _file;
+	private MappedByteBuffer _header;
+
+	/**
+	* Creates an array stored in direct buffers of DEFAULT_CHUNK_SIZE elements
+	*/
+	public ChunkedArray() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	* Creates an array stored in direct buffers
+	*
+	* @param chunkSize number of elements per chunk, rounded up to a power of two
+	*/
+	public ChunkedArray(int chunkSize) {
+		_chunkBits = bits(chunkSize);
+	}
+
+	/**
+	* Creates an array backed by a memory mapped file. If the file is not empty, it
+	* must hold data logged by a ChunkedArray, and that data is recovered.
+	*
+	* @throws IOException if the file is not empty and does not hold a valid header
+	*/
+	public ChunkedArray(File file) throws IOException {
+		this(file, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	* Creates an array backed by a memory mapped file. If the file is not empty, it
+	* must hold data logged by a ChunkedArray, and that data and its chunk size are
+	* recovered.
+	*
+	* @param chunkSize number of elements per chunk for a new file
+	* @throws IOException if the file is not empty and does not hold a valid header
+	*/
+	public ChunkedArray(File file, int chunkSize) throws IOException {
+		_chunkBits = bits(chunkSize);
+		_file = new RandomAccessFile(file, "rw");
+		long length = -1;
+		try {
+			if (_file.length() > 0)
+				length = readHeader(file);
+			_header = _file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+		} catch (IOException e) {
+			_file.close();
+			throw e;
+		}
+		_header.order(ByteOrder.LITTLE_ENDIAN);
+		if (length >= 0) {
+			while (((long)_chunks.length << _chunkBits) < length)
+				addChunk();
+			_length = length;
+			reset();
+		}
+		else {
+			_header.putLong(8, 0);
+			_header.putLong(16, 1 << _chunkBits);
+			// written last, so that an incomplete header is never taken as valid
+			_header.putLong(0, MAGIC);
+		}
+	}
+
+	/**
+	* Returns the number of elements in the array
+	*/
+	public long size() {
+		return _length;
+	}
+
+	/**
+	* Appends a value to the end of the array
+	*
+	* @param x
+	*/
+	public void append(double x) {
+		int c = (int)(_length >>> _chunkBits);
+		if (c >= _chunks.length)
+			addChunk();
+		_chunks[c].put((int)(_length & mask()), x);
+		_length++;
+		// publish the new length only after the element itself is written
+		if (_header != null)
+			_header.putLong(8, _length);
+		appended(x);
+	}
+
+	/**
+	* Appends two values to the end of the array
+	*
+	* @param x1
+	* @param x2
+	*/
+	public void append2(double x1, double x2) {
+		append(x1);
+		append(x2);
+	}
+
+	/**
+	* Gets an indexed value
+	*
+	* @param i
+	* @return array[i]
+	*/
+	public double get(long i) {
+		if (i >= _length)
+			throw new ArrayIndexOutOfBoundsException();
+		return element(i);
+	}
+
+	/**
+	* Sets value v to index i
+	*
+	* @param i
+	* @param v
+	*/
+	public void set(long i, double v) {
+		if (i >= _length)
+			throw new ArrayIndexOutOfBoundsException();
+		_chunks[(int)(i >>> _chunkBits)].put((int)(i & mask()), v);
+		changed(i, v);
+	}
+
+	/**
+	 * Removes all elements from the array. The chunks are kept for reuse.
+	 */
+	public void clear() {
+		_length = 0;
+		if (_header != null)
+			_header.putLong(8, 0);
+		reset();
+	}
+
+	/**
+	 * Writes the contents of a file backed array through to the storage device, so
+	 * that they also survive a crash of the operating system.
+	 */
+	public void force() {
+		if (_header == null)
+			return;
+		for (ByteBuffer b : _buffers)
+			((MappedByteBuffer)b).force();
+		_header.force();
+	}
+
+	/**
+	 * Closes the backing file, if any. The mapped data stays readable until the
+	 * array is garbage collected.
+	 */
+	public void close() throws IOException {
+		if (_file != null) {
+			force();
+			_file.close();
+		}
+	}
+
+	/**
+	* Returns a copy of the array as a static array. The array must be smaller
+	* than the largest Java array.
+	*/
+	public double[] copyArray() {
+		double[] ret = new double[(int)_length];
+		for (int i = 0; i < ret.length; i++)
+			ret[i] = get(i);
+		return ret;
+	}
+
+	public DatasetBuffer copyData() {
+		return view().copyData();
+	}
+
+	/**
+	* Returns a view of the (x,y) pairs which shares storage with this array
+	*/
+	public DatasetBuffer view() {
+		long n = _length / 2;
+		if (n > Integer.MAX_VALUE)
+			throw new IllegalStateException("Too many points to view.");
+		return new ChunkedBuffer(_chunks, _chunkBits, (int)n, sorted());
+	}
+
+	long length() {
+		return _length;
+	}
+
+	double element(long i) {
+		return _chunks[(int)(i >>> _chunkBits)].get((int)(i & mask()));
+	}
+
+	private long mask() {
+		return (1L << _chunkBits) - 1;
+	}
+
+	private void addChunk() {
+		long bytes = 8L << _chunkBits;
+		ByteBuffer b;
+		if (_file == null) {
+			b = ByteBuffer.allocateDirect((int)bytes);
+		}
+		else {
+			try {
+				long offset = HEADER_BYTES + _chunks.length * bytes;
+				b = _file.getChannel().map(FileChannel.MapMode.READ_WRITE, offset, bytes);
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not extend mapped file.", e);
+			}
+		}
+		b.order(ByteOrder.LITTLE_ENDIAN);
+		_buffers.add(b);
+		// views keep the previous chunk array, so replace rather than modify it
+		DoubleBuffer[] chunks = new DoubleBuffer[_chunks.length + 1];
+		System.arraycopy(_chunks, 0, chunks, 0, _chunks.length);
+		chunks[_chunks.length] = b.asDoubleBuffer();
+		_chunks = chunks;
+	}
+
+	// validates the header of an existing file, reads its chunk size, and returns
+	// its number of elements
+	private long readHeader(File file) throws IOException {
+		long bytes = _file.length();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		if (bytes < HEADER_BYTES || _file.getChannel().read(header, 0) < HEADER_BYTES
+				|| header.getLong(0) != MAGIC)
+			throw new IOException(file + " does not hold data logged by a ChunkedArray.");
+		long length = header.getLong(8);
+		long chunkSize = header.getLong(16);
+		if (chunkSize < 2 || chunkSize > (1 << 27) || Long.bitCount(chunkSize) != 1)
+			throw new IOException(file + " is corrupt: invalid chunk size " + chunkSize + ".");
+		if (length < 0 || length > (bytes - HEADER_BYTES) / 8)
+			throw new IOException(file + " is corrupt: " + length + " elements do not fit in " + bytes + " bytes.");
+		_chunkBits = bits((int)chunkSize);
+		return length;
+	}
+
+	private static int bits(int chunkSize) {
+		if (chunkSize < 2 || chunkSize > (1 << 27))
+			throw new IllegalArgumentException("Chunk size must be between 2 and 2^27 elements.");
+		return 32 - Integer.numberOfLeadingZeros(chunkSize - 1);
+	}
+
+	// reads the pairs [x1, y1, x2, y2, ...] in place
+	static class ChunkedBuffer extends PairBuffer {
+		private DoubleBuffer[] _chunks;
+		private int _bits;
+		private long _mask;
+
+		ChunkedBuffer(DoubleBuffer[] chunks, int bits, int size, boolean sorted) {
+			super(size, sorted);
+			_chunks = chunks;
+			_bits = bits;
+			_mask = (1L << bits) - 1;
+		}
+
+		private double get(long i) {
+			return _chunks[(int)(i >>> _bits)].get((int)(i & _mask));
+		}
+
+		public double x(int i) { return get(2L*i+0); }
+		public double y(int i) { return get(2L*i+1); }
+	}
+}
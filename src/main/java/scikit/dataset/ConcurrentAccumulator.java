@@ -0,0 +1,101 @@
+package scikit.dataset;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An accumulator which may be fed concurrently by many threads. Each thread
+ * accumulates into its own shard, so that independent sampler threads never
+ * contend with one another. The shards are merged on demand by merge() and
+ * copyData().
+ * <p>
+ * Each accum() holds the lock of its own shard, which only merge() and clear()
+ * ever contend for. The shards are not thread-confined and lock-free, because
+ * merge() could then only see what the sampler threads chose to publish, and
+ * would miss the recent values of threads which have stopped accumulating.
+ * An uncontended lock adds a few ns to the 10-30 ns of an accum().
+ */
+public class ConcurrentAccumulator extends DataSet {
+	protected double _binWidth;
+	protected boolean _fixedWidth;
+	private boolean _errorBars = false;
+	private boolean _blocking = false;
+	private List<Accumulator> _shards = new CopyOnWriteArrayList<Accumulator>();
+	private ThreadLocal<Accumulator> _local = new ThreadLocal<Accumulator>() {
+		protected Accumulator initialValue() {
+			Accumulator shard = newShard();
+			synchronized (ConcurrentAccumulator.this) {
+				shard.enableBlocking(_blocking);
+				_shards.add(shard);
+			}
+			return shard;
+		}
+	};
+	
+	public ConcurrentAccumulator(double binWidth) {
+		this(binWidth, false);
+	}
+	
+	public ConcurrentAccumulator(double binWidth, boolean fixedWidth) {
+		_binWidth = binWidth;
+		_fixedWidth = fixedWidth;
+	}
+	
+	public void enableErrorBars(boolean errorBars) {
+		_errorBars = errorBars;
+	}
+	
+	/**
+	 * See Accumulator.enableBlocking(). Must be called before any thread
+	 * accumulates, since the existing shards could not be merged with blocking
+	 * statistics; throws IllegalStateException otherwise.
+	 */
+	public synchronized void enableBlocking(boolean blocking) {
+		if (blocking != _blocking && !_shards.isEmpty())
+			throw new IllegalStateException("Blocking must be enabled before any values are accumulated.");
+		_blocking = blocking;
+	}
+	
+	/**
+	 * Accumulates into the calling thread's shard. The shard lock is only
+	 * contended while merge() reads it.
+	 */
+	public void accum(double x, double y) {
+		Accumulator shard = _local.get();
+		synchronized (shard) {
+			shard.accum(x, y);
+		}
+	}
+	
+	public void clear() {
+		for (Accumulator shard : _shards) {
+			synchronized (shard) {
+				shard.clear();
+			}
+		}
+	}
+	
+	/**
+	 * Returns a new accumulator holding the sum of all thread shards.
+	 */
+	public Accumulator merge() {
+		Accumulator ret = newShard();
+		if (_errorBars)
+			ret.enableErrorBars(true);
+		ret.enableBlocking(_blocking);
+		for (Accumulator shard : _shards) {
+			synchronized (shard) {
+				ret.accum(shard);
+			}
+		}
+		return ret;
+	}
+	
+	public DatasetBuffer copyData() {
+		return merge().copyData();
+	}
+	
+	protected Accumulator newShard() {
+		return new Accumulator(_binWidth, _fixedWidth);
+	}
+}
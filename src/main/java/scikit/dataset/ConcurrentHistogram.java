@@ -0,0 +1,31 @@
+package scikit.dataset;
+
+public class ConcurrentHistogram extends ConcurrentAccumulator {
+	private boolean _normalizing = false;
+	
+	public ConcurrentHistogram(double binWidth) {
+		super(binWidth);
+	}
+	
+	public ConcurrentHistogram(double binWidth, boolean fixedWidth) {
+		super(binWidth, fixedWidth);
+	}
+	
+	public void setNormalizing(boolean norm) {
+		_normalizing = norm;
+	}
+	
+	public void accum(double x) {
+		accum(x, 1.0);
+	}
+	
+	public Histogram merge() {
+		return (Histogram)super.merge();
+	}
+	
+	protected Accumulator newShard() {
+		Histogram ret = new Histogram(_binWidth, _fixedWidth);
+		ret.setNormalizing(_normalizing);
+		return ret;
+	}
+}
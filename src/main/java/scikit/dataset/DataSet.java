@@ -1,23 +1,20 @@
 package scikit.dataset;
 
 import scikit.util.Bounds;
-import scikit.util.DoubleArray;
 
 
 abstract public class DataSet {
+	private Bounds _bounds; // valid only if cachesBounds()
+	
 	/** Returns data width: xmin, xmax, ymin, ymax */
 	public Bounds getBounds() {
-		DatasetBuffer data = copyData();
-		if (data.size() == 0)
-			return new Bounds();
-		else {
-			return new Bounds(
-					DoubleArray.min(data._x),
-					DoubleArray.max(data._x),
-					DoubleArray.min(data._y),
-					DoubleArray.max(data._y)
-			);
+		Bounds ret = _bounds;
+		if (ret == null) {
+			ret = bounds(view());
+			if (cachesBounds())
+				_bounds = ret;
 		}
+		return ret.clone();
 	}
 	
 	/** Returns a copy of this dataset in the format [x1, y1, x2, y2, ...] */
@@ -27,4 +24,46 @@ abstract public class DataSet {
 	public DatasetBuffer copyPartial(int N, Bounds bds) {
 		return copyData();
 	}
+	
+	/**
+	 * Returns a read-only view of this dataset. The view may share storage with the
+	 * dataset, so it should not be modified, and its contents are only meaningful
+	 * until the dataset is next modified. Unlike copyData(), datasets which already
+	 * hold their points in arrays return a view without copying them.
+	 */
+	public DatasetBuffer view() {
+		return copyData();
+	}
+	
+	/** Returns a read-only view of the subset of this data within range */
+	public DatasetBuffer viewPartial(int N, Bounds bds) {
+		return copyPartial(N, bds);
+	}
+	
+	/**
+	 * Subclasses which call invalidateBounds() on every modification of their data
+	 * may return true, so that getBounds() is only recomputed when the data changes.
+	 */
+	protected boolean cachesBounds() {
+		return false;
+	}
+	
+	protected void invalidateBounds() {
+		_bounds = null;
+	}
+	
+	static Bounds bounds(DatasetBuffer data) {
+		int n = data.size();
+		if (n == 0)
+			return new Bounds();
+		Bounds ret = new Bounds(data.x(0), data.x(0), data.y(0), data.y(0));
+		for (int i = 1; i < n; i++) {
+			double x = data.x(i), y = data.y(i);
+			if (x < ret.xmin) ret.xmin = x;
+			if (x > ret.xmax) ret.xmax = x;
+			if (y < ret.ymin) ret.ymin = y;
+			if (y > ret.ymax) ret.ymax = y;
+		}
+		return ret;
+	}
 }
@@ -2,10 +2,16 @@ package scikit.dataset;
 
 import java.util.ArrayList;
 
+import static java.lang.Math.*;
+
+import scikit.util.Bounds;
 import scikit.util.DoubleArray;
 
 public class DatasetBuffer extends DataSet {
 	protected double[] _x, _y, _errY;
+	// whether the x values are nondecreasing, or null until known. set by the data
+	// sets which track it, so that their views and copies are never scanned.
+	Boolean _sorted;
 	protected DatasetBuffer() {}
 	
 	public double x(int i) { return _x[i]; }
@@ -32,6 +38,135 @@ public class DatasetBuffer extends DataSet {
 		ret._x = DoubleArray.clone(_x);
 		ret._y = DoubleArray.clone(_y);
 		ret._errY = DoubleArray.clone(_errY);
+		ret._sorted = _sorted;
 		return ret;
 	}
+	
+	public DatasetBuffer view() {
+		return this;
+	}
+	
+	public DatasetBuffer copyPartial(int N, Bounds bds) {
+		return isSorted() ? decimate(N, bds) : copyData();
+	}
+	
+	public DatasetBuffer viewPartial(int N, Bounds bds) {
+		return isSorted() ? decimate(N, bds) : this;
+	}
+	
+	/**
+	 * Returns true if the x values are in nondecreasing order. Unless the data set
+	 * which created this buffer already knew, the x values are scanned once and
+	 * the answer is cached.
+	 */
+	public boolean isSorted() {
+		if (_sorted == null)
+			_sorted = scanSorted();
+		return _sorted;
+	}
+	
+	// checks the order of the x values, ignoring any cached answer
+	boolean scanSorted() {
+		for (int i = 1; i < size(); i++)
+			if (x(i) < x(i-1))
+				return false;
+		return true;
+	}
+	
+	/**
+	 * Returns a new buffer holding the points within the x-range of bds, along with
+	 * one point on either side so that lines run off the edge of the view. If there
+	 * are more than 4N such points, the range is split into N columns and only the
+	 * first, last, minimum and maximum point of each column are kept. This preserves
+	 * the appearance of a line plot drawn N pixels wide. The x values must be sorted.
+	 */
+	DatasetBuffer decimate(int N, Bounds bds) {
+		int n = size();
+		int lo = 0, hi = n;
+		if (bds.xmin <= bds.xmax) {
+			lo = max(search(bds.xmin) - 1, 0);
+			hi = min(search(Math.nextUp(bds.xmax)) + 1, n);
+		}
+		if (hi - lo <= 4*N)
+			return slice(lo, hi);
+		
+		double x0 = Double.isInfinite(bds.xmin) ? x(lo) : max(bds.xmin, x(lo));
+		double x1 = Double.isInfinite(bds.xmax) ? x(hi-1) : min(bds.xmax, x(hi-1));
+		int[] idx = new int[4*N];
+		int[] ext = new int[2];
+		int cnt = 0;
+		for (int c = 0, a = lo; c < N && a < hi; c++) {
+			int b = (c == N-1) ? hi : min(max(search(x0 + (c+1)*(x1-x0)/N), a), hi);
+			if (a == b)
+				continue;
+			// emit the column's extreme points in their original order
+			extrema(a, b, ext);
+			cnt = push(idx, cnt, a);
+			cnt = push(idx, cnt, min(ext[0], ext[1]));
+			cnt = push(idx, cnt, max(ext[0], ext[1]));
+			cnt = push(idx, cnt, b-1);
+			a = b;
+		}
+		
+		DatasetBuffer ret = new DatasetBuffer();
+		ret._x = new double[cnt];
+		ret._y = new double[cnt];
+		if (hasErrorY())
+			ret._errY = new double[cnt];
+		for (int j = 0; j < cnt; j++) {
+			ret._x[j] = x(idx[j]);
+			ret._y[j] = y(idx[j]);
+			if (hasErrorY())
+				ret._errY[j] = errorY(idx[j]);
+		}
+		ret._sorted = true;
+		return ret;
+	}
+	
+	// writes the indices of the minimum and maximum y among points [a, b) into ret
+	void extrema(int a, int b, int[] ret) {
+		int imin = a, imax = a;
+		for (int i = a+1; i < b; i++) {
+			if (y(i) < y(imin)) imin = i;
+			if (y(i) > y(imax)) imax = i;
+		}
+		ret[0] = imin;
+		ret[1] = imax;
+	}
+	
+	private static int push(int[] idx, int cnt, int i) {
+		if (cnt == 0 || idx[cnt-1] != i)
+			idx[cnt++] = i;
+		return cnt;
+	}
+	
+	// copy of the points in index range [i1, i2)
+	private DatasetBuffer slice(int i1, int i2) {
+		DatasetBuffer ret = new DatasetBuffer();
+		ret._x = new double[i2-i1];
+		ret._y = new double[i2-i1];
+		if (hasErrorY())
+			ret._errY = new double[i2-i1];
+		for (int i = i1; i < i2; i++) {
+			ret._x[i-i1] = x(i);
+			ret._y[i-i1] = y(i);
+			if (hasErrorY())
+				ret._errY[i-i1] = errorY(i);
+		}
+		ret._sorted = true;
+		return ret;
+	}
+	
+	// index of the first point with x >= v
+	int search(double v) {
+		int lo = 0, hi = size();
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (x(mid) < v)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
 }
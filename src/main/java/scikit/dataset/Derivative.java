@@ -10,16 +10,16 @@ public class Derivative extends DataSet {
 	}
 	
 	public DatasetBuffer copyData() {
-		DatasetBuffer dat = _src.copyData();
+		DatasetBuffer dat = _src.view();
 		DatasetBuffer ret = new DatasetBuffer();
 		ret._x = new double[dat.size()-1];
 		ret._y = new double[dat.size()-1];
 		
 		for (int i = 0; i < dat.size()-1; i++) {
-			double x1 = dat._x[i];
-			double y1 = dat._y[i];
-			double x2 = dat._x[i+1];
-			double y2 = dat._y[i+1];
+			double x1 = dat.x(i);
+			double y1 = dat.y(i);
+			double x2 = dat.x(i+1);
+			double y2 = dat.y(i+1);
 			ret._x[i] = (invertDependentParameter ? (y1+y2) : (x1+x2)) / 2;
 			ret._y[i] = (y2 - y1) / (x2 - x1);
 		}
@@ -1,9 +1,12 @@
 package scikit.dataset;
 
+import scikit.util.Bounds;
 
-public class DynamicArray extends DataSet {
+public class DynamicArray extends PairArray {
 	private int _length;
 	private double[] _data;
+	private SeriesPyramid _pyramid; // non-null if enablePyramid() was called
+	private boolean _pyramidValid = true;
 	
 	public DynamicArray() {
 		_data = new double[64];
@@ -26,6 +29,16 @@ public class DynamicArray extends DataSet {
 		if (_length >= _data.length)
 			increaseCapacity();
 		_data[_length++] = x;
+		appended(x);
+		if (_length % 2 == 0 && _pyramid != null) {
+			if (_pyramidValid)
+				_pyramid.append(_data);
+			else {
+				// rebuilt here, by the writer, after set() invalidated it
+				_pyramid.rebuild(_data, _length/2);
+				_pyramidValid = true;
+			}
+		}
 	}
 	
 	/**
@@ -61,6 +74,8 @@ public class DynamicArray extends DataSet {
 		if (i >= _length)
 			throw new ArrayIndexOutOfBoundsException();
 		_data[i] = v;
+		changed(i, v);
+		_pyramidValid = false;
 	}
 	
 	/**
@@ -68,6 +83,57 @@ public class DynamicArray extends DataSet {
 	 */
 	public void clear() {
 		_length = 0;
+		reset();
+		if (_pyramid != null)
+			_pyramid.clear();
+		_pyramidValid = true;
+	}
+	
+	/**
+	* Maintains a multi-resolution min/max/mean index of the (x,y) pairs as they are
+	* appended, at an amortized cost of O(1) per append. For series with sorted x,
+	* the index lets copyPartial(), viewPartial() and summarize() work in time
+	* O(log n) per output column rather than O(n). The index is only updated by
+	* append() and enablePyramid(), never by readers; after set(), readers scan
+	* linearly until the next append() rebuilds it.
+	*/
+	public void enablePyramid() {
+		if (_pyramid == null) {
+			_pyramid = new SeriesPyramid();
+			_pyramid.rebuild(_data, _length/2);
+			_pyramidValid = true;
+		}
+	}
+	
+	/**
+	* Divides the range [xmin, xmax] into N columns of equal width, and returns the
+	* column centers along with the minimum, maximum, and mean y of the pairs in each
+	* column. Columns without pairs are NaN. Requires sorted x values.
+	*
+	* @return {xcenter, ymin, ymax, ymean}
+	*/
+	public double[][] summarize(double xmin, double xmax, int N) {
+		if (!sorted())
+			throw new IllegalStateException("Summaries require sorted x values.");
+		DatasetBuffer view = view();
+		double[][] ret = new double[4][N];
+		int[] ext = new int[2];
+		int a = view.search(xmin);
+		for (int c = 0; c < N; c++) {
+			ret[0][c] = xmin + (c+0.5)*(xmax-xmin)/N;
+			int b = (c == N-1) ? view.search(Math.nextUp(xmax)) : view.search(xmin + (c+1)*(xmax-xmin)/N);
+			b = Math.max(a, b);
+			if (a == b) {
+				ret[1][c] = ret[2][c] = ret[3][c] = Double.NaN;
+				continue;
+			}
+			double sum = ((InterleavedBuffer)view).query(a, b, ext);
+			ret[1][c] = view.y(ext[0]);
+			ret[2][c] = view.y(ext[1]);
+			ret[3][c] = sum / (b - a);
+			a = b;
+		}
+		return ret;
 	}
 	
 	/**
@@ -91,12 +157,71 @@ public class DynamicArray extends DataSet {
 			ret._x[i] = _data[2*i+0];
 			ret._y[i] = _data[2*i+1];
 		}
+		ret._sorted = sorted();
 		return ret;
 	}
 
+	/**
+	* Returns a view of the (x,y) pairs which shares storage with this array
+	*/
+	public DatasetBuffer view() {
+		return new InterleavedBuffer(_data, _length/2, _pyramidValid ? _pyramid : null, sorted());
+	}
+	
+	long length() {
+		return _length;
+	}
+	
+	double element(long i) {
+		return _data[(int)i];
+	}
+	
+	Bounds computeBounds() {
+		DatasetBuffer view = view();
+		if (_pyramid != null && sorted() && view.size() > 0) {
+			int[] ext = new int[2];
+			((InterleavedBuffer)view).query(0, view.size(), ext);
+			return new Bounds(view.x(0), view.x(view.size()-1), view.y(ext[0]), view.y(ext[1]));
+		}
+		return bounds(view);
+	}
+	
 	private void increaseCapacity() {
 		double[] temp = new double[2 * _length];
 		System.arraycopy(_data, 0, temp, 0, _length);
 		_data = temp;
 	}
+	
+	// reads the pairs [x1, y1, x2, y2, ...] in place
+	static class InterleavedBuffer extends PairBuffer {
+		private double[] _data;
+		private SeriesPyramid _pyramid;
+		
+		InterleavedBuffer(double[] data, int size, SeriesPyramid pyramid, boolean sorted) {
+			super(size, sorted);
+			_data = data;
+			_pyramid = pyramid;
+		}
+		
+		void extrema(int a, int b, int[] ret) {
+			if (_pyramid != null && b <= _pyramid.size())
+				_pyramid.query(_data, a, b, ret);
+			else
+				super.extrema(a, b, ret);
+		}
+		
+		// finds the extrema among pairs [a, b) and returns the sum of their y values
+		double query(int a, int b, int[] ret) {
+			if (_pyramid != null && b <= _pyramid.size())
+				return _pyramid.query(_data, a, b, ret);
+			super.extrema(a, b, ret);
+			double sum = 0;
+			for (int i = a; i < b; i++)
+				sum += y(i);
+			return sum;
+		}
+		
+		public double x(int i) { return _data[2*i+0]; }
+		public double y(int i) { return _data[2*i+1]; }
+	}
 }
\ No newline at end of file
@@ -11,6 +11,10 @@ public class Histogram extends Accumulator {
 		super(binWidth);
 	}
 	
+	public Histogram(double binWidth, boolean fixedWidth) {
+		super(binWidth, fixedWidth);
+	}
+	
 	public Histogram(Histogram that, double binWidth) {
 		super(that, binWidth);
 		_fullSum = that._fullSum;
@@ -19,6 +23,7 @@ public class Histogram extends Accumulator {
     
     public void setNormalizing(boolean norm) {
         _normalizing = norm;
+        invalidateBounds();
     }
 	
 	public double eval(double x) {
@@ -41,6 +46,12 @@ public class Histogram extends Accumulator {
 		_fullSum += y;
 	}
 	
+	public void accum(Accumulator that) {
+		super.accum(that);
+		if (that instanceof Histogram)
+			_fullSum += ((Histogram)that)._fullSum;
+	}
+	
 	public void accum(double x) {
 		accum(x, 1.0);
 	}
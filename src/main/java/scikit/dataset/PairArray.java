@@ -0,0 +1,107 @@
+package scikit.dataset;
+
+import scikit.util.Bounds;
+
+/**
+ * The bookkeeping shared by arrays which store (x,y) pairs as the elements
+ * [x1, y1, x2, y2, ...]. The bounds of the pairs, and whether their x values are
+ * sorted, are maintained as elements are appended and set, so that neither
+ * getBounds() nor the partial copies and views need to scan the array.
+ */
+abstract class PairArray extends DataSet {
+	private Bounds _bounds = new Bounds(); // bounds of the (x,y) pairs, maintained by appended()
+	private boolean _boundsValid = true;
+	private boolean _sorted = true; // whether the x values are nondecreasing
+
+	// number of elements stored
+	abstract long length();
+
+	// element i, which must be less than length()
+	abstract double element(long i);
+
+	// whether the x values are nondecreasing
+	boolean sorted() {
+		return _sorted;
+	}
+
+	// to be called after the value v is appended as the last element
+	void appended(double v) {
+		long n = length();
+		if (n % 2 != 0)
+			return;
+		double x1 = element(n-2);
+		if (n >= 4 && x1 < element(n-4))
+			_sorted = false;
+		if (_boundsValid) {
+			_bounds.xmin = Math.min(_bounds.xmin, x1);
+			_bounds.xmax = Math.max(_bounds.xmax, x1);
+			_bounds.ymin = Math.min(_bounds.ymin, v);
+			_bounds.ymax = Math.max(_bounds.ymax, v);
+		}
+	}
+
+	// to be called after element i is set to the value v
+	void changed(long i, double v) {
+		_boundsValid = false;
+		if (i % 2 == 0 && ((i >= 2 && v < element(i-2)) || (i+2 < length() && v > element(i+2))))
+			_sorted = false;
+	}
+
+	// to be called after the elements are replaced wholesale, or all removed
+	void reset() {
+		_bounds = new Bounds();
+		_boundsValid = length() == 0;
+		_sorted = _boundsValid || view().scanSorted();
+	}
+
+	public DatasetBuffer copyPartial(int N, Bounds bds) {
+		return _sorted ? view().decimate(N, bds) : copyData();
+	}
+
+	public DatasetBuffer viewPartial(int N, Bounds bds) {
+		return _sorted ? view().decimate(N, bds) : view();
+	}
+
+	public Bounds getBounds() {
+		if (!_boundsValid) {
+			_bounds = computeBounds();
+			_boundsValid = true;
+		}
+		return _bounds.clone();
+	}
+
+	// recomputes the bounds after set() has invalidated them
+	Bounds computeBounds() {
+		return bounds(view());
+	}
+
+	// reads the pairs of a PairArray in place
+	static abstract class PairBuffer extends DatasetBuffer {
+		protected int _size;
+
+		PairBuffer(int size, boolean sorted) {
+			_size = size;
+			_sorted = sorted;
+		}
+
+		public int size() {
+			return _size;
+		}
+
+		public double[][] columns() {
+			return copyData().columns();
+		}
+
+		public DatasetBuffer copyData() {
+			DatasetBuffer ret = new DatasetBuffer();
+			ret._x = new double[_size];
+			ret._y = new double[_size];
+			for (int i = 0; i < _size; i++) {
+				ret._x[i] = x(i);
+				ret._y[i] = y(i);
+			}
+			ret._sorted = _sorted;
+			return ret;
+		}
+	}
+}
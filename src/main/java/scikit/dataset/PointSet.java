@@ -1,11 +1,19 @@
 package scikit.dataset;
 
+import scikit.util.Bounds;
 import scikit.util.DoubleArray;
 
 
+/**
+ * A data set over arrays of x and y values, which are shared, not copied.
+ * Whether x is sorted, which allows copyPartial() and viewPartial() to
+ * decimate, is checked only when x is set. Callers which modify the x array
+ * in place must pass it to setX() or setXY() again afterwards.
+ */
 public class PointSet extends DataSet {
 	// TODO dynamicarray
 	private double[] _x, _y;
+	private boolean _sorted; // whether x is nondecreasing, checked when x is set
 	
 	
 	public PointSet(double x0, double dx, double[] y) {
@@ -14,6 +22,7 @@ public class PointSet extends DataSet {
 			_x[i] = x0 + i*dx;
 		}
 		_y = y;
+		_sorted = dx >= 0;
 	}
 	
 	
@@ -35,6 +44,7 @@ public class PointSet extends DataSet {
 			throw new IllegalArgumentException("Array sizes are not equal.");
 		_x = x;
 		_y = y;
+		_sorted = view().scanSorted();
 	}
 	
 	
@@ -42,6 +52,23 @@ public class PointSet extends DataSet {
 		DatasetBuffer ret = new DatasetBuffer();
 		ret._x = DoubleArray.clone(_x);
 		ret._y = DoubleArray.clone(_y);
+		ret._sorted = _sorted;
 		return ret;
 	}
+	
+	public DatasetBuffer view() {
+		DatasetBuffer ret = new DatasetBuffer();
+		ret._x = _x;
+		ret._y = _y;
+		ret._sorted = _sorted;
+		return ret;
+	}
+	
+	public DatasetBuffer copyPartial(int N, Bounds bds) {
+		return _sorted ? view().decimate(N, bds) : copyData();
+	}
+	
+	public DatasetBuffer viewPartial(int N, Bounds bds) {
+		return _sorted ? view().decimate(N, bds) : view();
+	}
 }
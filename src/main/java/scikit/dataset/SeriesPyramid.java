@@ -0,0 +1,127 @@
+package scikit.dataset;
+
+// Multi-resolution summary of the y values of an interleaved series [x1, y1, x2, y2, ...].
+// Level k divides the points into blocks of BLOCK*2^k and stores, for each complete
+// block, the index of its minimum and maximum y and the sum of its y values. Appending
+// a point costs amortized O(1), and the extrema or mean over any index range are then
+// found in O(BLOCK + log n).
+class SeriesPyramid {
+	static final int BLOCK = 64;
+
+	private int _n = 0;   // number of points summarized
+	private int _levels = 0;
+	private int[][] _imin = new int[32][];
+	private int[][] _imax = new int[32][];
+	private double[][] _sum = new double[32][];
+
+	public int size() {
+		return _n;
+	}
+
+	public void clear() {
+		_n = 0;
+		_levels = 0;
+	}
+
+	// summarizes the first n points of data
+	public void rebuild(double[] data, int n) {
+		clear();
+		for (int i = 0; i < n; i++)
+			append(data);
+	}
+
+	// adds point _n of data, which must already be written
+	public void append(double[] data) {
+		int i = _n++;
+		int j = i / BLOCK;
+		if (i % BLOCK == 0) {
+			ensure(0, j);
+			_imin[0][j] = _imax[0][j] = i;
+			_sum[0][j] = data[2*i+1];
+		}
+		else {
+			double y = data[2*i+1];
+			if (y < data[2*_imin[0][j]+1]) _imin[0][j] = i;
+			if (y > data[2*_imax[0][j]+1]) _imax[0][j] = i;
+			_sum[0][j] += y;
+		}
+		// fold each newly completed block into its parent
+		if (i % BLOCK == BLOCK-1) {
+			for (int k = 0; ; k++) {
+				ensure(k+1, j/2);
+				if (j % 2 == 0) {
+					_imin[k+1][j/2] = _imin[k][j];
+					_imax[k+1][j/2] = _imax[k][j];
+					_sum[k+1][j/2] = _sum[k][j];
+					break;
+				}
+				_imin[k+1][j/2] = argmin(data, _imin[k+1][j/2], _imin[k][j]);
+				_imax[k+1][j/2] = argmax(data, _imax[k+1][j/2], _imax[k][j]);
+				_sum[k+1][j/2] += _sum[k][j];
+				j /= 2;
+			}
+		}
+	}
+
+	// writes the indices of the minimum and maximum y among points [a, b) into ret,
+	// and returns the sum of their y values. requires a < b <= size().
+	public double query(double[] data, int a, int b, int[] ret) {
+		int imin = a, imax = a;
+		double sum = 0;
+		int i = a;
+		while (i < b) {
+			if (i % BLOCK != 0 || i + BLOCK > b) {
+				double y = data[2*i+1];
+				if (y < data[2*imin+1]) imin = i;
+				if (y > data[2*imax+1]) imax = i;
+				sum += y;
+				i++;
+				continue;
+			}
+			// use the coarsest complete block which starts at i and ends within b
+			int k = 0;
+			while (k+1 < _levels && i % (BLOCK<<(k+1)) == 0 && i + (BLOCK<<(k+1)) <= b)
+				k++;
+			int j = i / (BLOCK<<k);
+			imin = argmin(data, imin, _imin[k][j]);
+			imax = argmax(data, imax, _imax[k][j]);
+			sum += _sum[k][j];
+			i += BLOCK<<k;
+		}
+		ret[0] = imin;
+		ret[1] = imax;
+		return sum;
+	}
+
+	private static int argmin(double[] data, int i1, int i2) {
+		return data[2*i2+1] < data[2*i1+1] ? i2 : i1;
+	}
+
+	private static int argmax(double[] data, int i1, int i2) {
+		return data[2*i2+1] > data[2*i1+1] ? i2 : i1;
+	}
+
+	// makes room for block j at level k
+	private void ensure(int k, int j) {
+		if (k >= _imin.length)
+			throw new IllegalStateException("Series too long to summarize.");
+		if (k >= _levels)
+			_levels = k+1;
+		if (_imin[k] == null || j >= _imin[k].length) {
+			int capacity = Math.max(16, 2*j);
+			_imin[k] = grown(_imin[k], capacity);
+			_imax[k] = grown(_imax[k], capacity);
+			double[] s = new double[capacity];
+			if (_sum[k] != null)
+				System.arraycopy(_sum[k], 0, s, 0, _sum[k].length);
+			_sum[k] = s;
+		}
+	}
+
+	private static int[] grown(int[] a, int capacity) {
+		int[] ret = new int[capacity];
+		if (a != null)
+			System.arraycopy(a, 0, ret, 0, a.length);
+		return ret;
+	}
+}
@@ -0,0 +1,238 @@
+package scikit.dataset;
+
+import static java.lang.Math.*;
+
+import java.util.Arrays;
+
+import scikit.numerics.fft.FFT2D;
+import scikit.numerics.fft.FFT3D;
+
+/**
+ * The radially averaged structure factor S(k) of a 2D or 3D field, binned in shells
+ * of |k| of width binWidth centered at multiples of binWidth, like an Accumulator.
+ * Each call to accum(field) transforms the field and adds the shell averages of
+ * |phi(k)|^2, times the scale, as one sample. The samples are averaged over time,
+ * unless averaging is disabled, in which case only the latest is kept.
+ * <p>
+ * The shell of every mode is found once, on the first transform, in the order in
+ * which transform(src, fn) visits the modes. Later transforms scatter |phi(k)|^2
+ * into the shells by that order alone, without computing |k| or looking up bins.
+ * The shells are found again, and the samples so far discarded, if the transform
+ * visits its modes differently, e.g., after setLengths(). For transforms which
+ * visit only k1 >= 0, the other half of the spectrum is counted by symmetry.
+ */
+public class StructureFactor extends DataSet {
+	private FFT2D _fft2;
+	private FFT3D _fft3;
+	private double _binWidth;
+	private double _scale = 1;
+	private boolean _averaging = true;
+	private boolean _errorBars = false;
+
+	// shell of each visited mode times 2, plus one if the mode stands for itself
+	// and its conjugate
+	private int[] _modes;
+	private int _visits;
+	private double _lastK; // |k|^2 of the last visited mode, to detect new geometry
+	private double[] _weight; // number of modes in each shell
+	private double[] _sum;    // sum of |phi(k)|^2 over each shell in the current sample
+	private double[] _moments; // Bin.MOMENTS values per shell, over samples
+	private long _count;
+
+	private FFT2D.MapFn _scatter2 = new FFT2D.MapFn() {
+		public void apply(double k1, double k2, double re, double im) {
+			scatter(k1*k1 + k2*k2, re*re + im*im);
+		}
+	};
+	private FFT3D.MapFn _scatter3 = new FFT3D.MapFn() {
+		public void apply(double k1, double k2, double k3, double re, double im) {
+			scatter(k1*k1 + k2*k2 + k3*k3, re*re + im*im);
+		}
+	};
+
+	public StructureFactor(FFT2D fft, double binWidth) {
+		this(binWidth);
+		_fft2 = fft;
+	}
+
+	public StructureFactor(FFT3D fft, double binWidth) {
+		this(binWidth);
+		_fft3 = fft;
+	}
+
+	private StructureFactor(double binWidth) {
+		if (!(binWidth > 0))
+			throw new IllegalArgumentException("Bin width must be positive.");
+		_binWidth = binWidth;
+	}
+
+	/** Multiplies every |phi(k)|^2 by scale, e.g., 1/V for the structure factor. */
+	public void setScale(double scale) {
+		_scale = scale;
+	}
+
+	/** If averaging is false, each sample replaces the previous ones. */
+	public void setAveraging(boolean averaging) {
+		_averaging = averaging;
+	}
+
+	public void enableErrorBars(boolean errorBars) {
+		_errorBars = errorBars;
+	}
+
+	public void clear() {
+		invalidateBounds();
+		if (_moments != null)
+			Arrays.fill(_moments, 0);
+		_count = 0;
+	}
+
+	/** Returns the number of samples averaged. */
+	public long count() {
+		return _count;
+	}
+
+	/** Transforms field and accumulates its structure factor as one sample. */
+	public void accum(double[] field) {
+		invalidateBounds();
+		if (_modes == null || !transform(field)) {
+			findShells(field);
+			transform(field);
+		}
+		if (!_averaging)
+			clear();
+		for (int j = 0; j < _sum.length; j++) {
+			if (_weight[j] > 0)
+				Bin.accum(_moments, j*Bin.MOMENTS, _count, _scale * _sum[j] / _weight[j]);
+		}
+		_count++;
+	}
+
+	/** Returns the average S(k) in the shell containing k. */
+	public double eval(double k) {
+		int j = shell(k*k);
+		return (_count == 0 || j >= _weight.length || _weight[j] == 0) ? Double.NaN : _moments[j*Bin.MOMENTS];
+	}
+
+	/** Returns the standard error of S(k) in the shell containing k, assuming that
+	 * the samples are independent. */
+	public double evalError(double k) {
+		int j = shell(k*k);
+		return (_count == 0 || j >= _weight.length || _weight[j] == 0) ? Double.NaN : error(j);
+	}
+
+	public DatasetBuffer copyData() {
+		int n = 0;
+		if (_count > 0)
+			for (int j = 0; j < _weight.length; j++)
+				if (_weight[j] > 0)
+					n++;
+		DatasetBuffer ret = new DatasetBuffer();
+		ret._x = new double[n];
+		ret._y = new double[n];
+		if (_errorBars)
+			ret._errY = new double[n];
+		for (int j = 0, i = 0; i < n; j++) {
+			if (_weight[j] > 0) {
+				ret._x[i] = j*_binWidth;
+				ret._y[i] = _moments[j*Bin.MOMENTS];
+				if (_errorBars)
+					ret._errY[i] = error(j);
+				i++;
+			}
+		}
+		return ret;
+	}
+
+	protected boolean cachesBounds() {
+		return true;
+	}
+
+	private double error(int j) {
+		return sqrt(_moments[j*Bin.MOMENTS+1]) / _count;
+	}
+
+	private int shell(double k2) {
+		return (int)rint(sqrt(k2) / _binWidth);
+	}
+
+	// transforms field, scattering |phi(k)|^2 into _sum by the recorded shells.
+	// returns false if the modes were not visited as recorded.
+	private boolean transform(double[] field) {
+		Arrays.fill(_sum, 0);
+		_visits = 0;
+		if (_fft2 != null)
+			_fft2.transform(field, _scatter2);
+		else
+			_fft3.transform(field, _scatter3);
+		return _visits == _modes.length;
+	}
+
+	private void scatter(double k2, double p) {
+		int i = _visits++;
+		if (i < _modes.length) {
+			int m = _modes[i];
+			_sum[m >> 1] += (m & 1) == 0 ? p : 2*p;
+			if (i == _modes.length-1 && k2 != _lastK)
+				_visits = -1; // same number of modes, but a different geometry
+		}
+	}
+
+	// finds the shell of every mode of the transform of field. the first visit
+	// counts the modes and finds the range of k1; the second records the shells.
+	private void findShells(double[] field) {
+		final double[] range = {0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		visit(field, new Visitor() {
+			void apply(double k1, double k2) {
+				range[0]++;
+				range[1] = min(range[1], k1);
+				range[2] = max(range[2], k1);
+			}
+		});
+
+		// a transform which visits no k1 < 0 stores half the spectrum. its modes
+		// stand for their conjugates too, except those of the planes k1 = 0 and
+		// the largest k1, which are their own conjugates.
+		final boolean half = range[1] >= 0;
+		final double k1max = range[2];
+		_modes = new int[(int)range[0]];
+		_visits = 0;
+		visit(field, new Visitor() {
+			void apply(double k1, double k2) {
+				boolean pair = half && k1 > 0 && k1 < k1max;
+				_modes[_visits++] = 2*shell(k2) + (pair ? 1 : 0);
+				_lastK = k2;
+			}
+		});
+
+		int shells = 0;
+		for (int m : _modes)
+			shells = max(shells, (m >> 1) + 1);
+		_weight = new double[shells];
+		for (int m : _modes)
+			_weight[m >> 1] += (m & 1) == 0 ? 1 : 2;
+		_sum = new double[shells];
+		_moments = new double[shells*Bin.MOMENTS];
+		_count = 0;
+	}
+
+	// visits k1 and |k|^2 of every mode of the transform of field
+	private void visit(double[] field, final Visitor v) {
+		if (_fft2 != null)
+			_fft2.transform(field, new FFT2D.MapFn() {
+				public void apply(double k1, double k2, double re, double im) {
+					v.apply(k1, k1*k1 + k2*k2);
+				}
+			});
+		else
+			_fft3.transform(field, new FFT3D.MapFn() {
+				public void apply(double k1, double k2, double k3, double re, double im) {
+					v.apply(k1, k1*k1 + k2*k2 + k3*k3);
+				}
+			});
+	}
+
+	private abstract static class Visitor {
+		abstract void apply(double k1, double k2);
+	}
+}
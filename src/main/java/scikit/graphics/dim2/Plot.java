@@ -223,7 +223,7 @@ public class Plot extends Scene2D {
 			fname = FileUtil.saveDialog(_component, fname);
 			if (fname != null) {
 				PrintWriter pw = FileUtil.pwFromString(fname);
-				FileUtil.writeColumns(pw, data.copyData().columns());
+				FileUtil.writeColumns(pw, data.view());
 				pw.close();
 			}
 		} catch (IOException e) {}
@@ -249,7 +249,7 @@ class RegisteredData implements Drawable<Gfx2D> {
 	
 	public void draw(Gfx2D g) {
 		Bounds bds = expBounds(g.viewBounds());
-		DatasetBuffer pts = _data.copyPartial(1000, bds);
+		DatasetBuffer pts = _data.viewPartial(1000, bds);
 		
 		drawErrorBarsY(g, pts);
 		drawMarks(g, pts);
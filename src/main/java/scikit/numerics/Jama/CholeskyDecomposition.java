@@ -33,6 +33,12 @@ public class CholeskyDecomposition implements java.io.Serializable {
    */
    private boolean isspd;
 
+   /** Width of the panels of the blocked algorithm. */
+   private static final int NB = 64;
+
+   /** Matrices of at least this dimension use the blocked algorithm. */
+   private static final int BLOCKED = 256;
+
 /* ------------------------
    Constructor
  * ------------------------ */
@@ -46,10 +52,14 @@ public class CholeskyDecomposition implements java.io.Serializable {
 
 
      // Initialize.
-      double[][] A = Arg.getArray();
+      double[][] A = Arg.getArrayOrCopy();
       n = Arg.getRowDimension();
       L = new double[n][n];
       isspd = (Arg.getColumnDimension() == n);
+      if (isspd && n >= BLOCKED) {
+         factorBlocked(A);
+         return;
+      }
       // Main loop.
       for (int j = 0; j < n; j++) {
          double[] Lrowj = L[j];
@@ -98,7 +108,7 @@ public class CholeskyDecomposition implements java.io.Serializable {
 
    public CholeskyDecomposition (Matrix Arg, int rightflag) {
       // Initialize.
-      double[][] A = Arg.getArray();
+      double[][] A = Arg.getArrayOrCopy();
       n = Arg.getColumnDimension();
       R = new double[n][n];
       isspd = (Arg.getColumnDimension() == n);
@@ -197,5 +207,69 @@ public class CholeskyDecomposition implements java.io.Serializable {
       
       return new Matrix(X,n,nx);
    }
-}
 
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Right-looking, blocked Cholesky algorithm. Each panel of NB columns of L
+   is computed from the updated lower triangle, and the trailing lower triangle
+   is then updated by matrix products, one for each block column, which take
+   almost all of the time and are distributed over the threads of Gemm.
+   @param  A   Square matrix.
+   */
+
+   private void factorBlocked (double[][] A) {
+      for (int i = 0; i < n; i++) {
+         for (int j = 0; j < i; j++) {
+            L[i][j] = A[i][j];
+            isspd = isspd & (A[i][j] == A[j][i]);
+         }
+         L[i][i] = A[i][i];
+      }
+      Matrix X = new Matrix(L,n,n);
+      for (int k = 0; k < n; k += NB) {
+         int kend = Math.min(k+NB,n);
+
+         // Compute the panel.
+
+         for (int j = k; j < kend; j++) {
+            double[] Lrowj = L[j];
+            double d = Lrowj[j];
+            for (int l = k; l < j; l++) {
+               d -= Lrowj[l]*Lrowj[l];
+            }
+            isspd = isspd & (d > 0.0);
+            Lrowj[j] = Math.sqrt(Math.max(d,0.0));
+            for (int i = j+1; i < n; i++) {
+               double[] Lrowi = L[i];
+               double s = Lrowi[j];
+               for (int l = k; l < j; l++) {
+                  s -= Lrowi[l]*Lrowj[l];
+               }
+               Lrowi[j] = s/Lrowj[j];
+            }
+         }
+
+         // Update the trailing lower triangle with the transpose of the panel.
+
+         if (kend < n) {
+            Matrix W = Matrix.flat(kend-k,n-kend);
+            for (int i = kend; i < n; i++) {
+               for (int l = k; l < kend; l++) {
+                  W.set(l-k,i-kend,L[i][l]);
+               }
+            }
+            for (int j = kend; j < n; j += NB) {
+               int w = Math.min(NB,n-j);
+               Gemm.multiply(-1.0,X,j,k,W,0,j-kend,X,j,j,n-j,w,kend-k);
+            }
+         }
+      }
+      for (int i = 0; i < n; i++) {
+         for (int j = i+1; j < n; j++) {
+            L[i][j] = 0.0;
+         }
+      }
+   }
+}
@@ -861,7 +861,7 @@ public class EigenvalueDecomposition implements java.io.Serializable {
    */
 
    public EigenvalueDecomposition (Matrix Arg) {
-      double[][] A = Arg.getArray();
+      double[][] A = Arg.getArrayOrCopy();
       n = Arg.getColumnDimension();
       V = new double[n][n];
       d = new double[n];
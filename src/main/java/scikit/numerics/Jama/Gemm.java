@@ -0,0 +1,198 @@
+package scikit.numerics.Jama;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import scikit.numerics.Workers;
+
+   /** Blocked matrix multiplication, C = C + alpha*A*B.
+   <P>
+   The operands are sub-blocks of matrices in either storage. B is copied panel by
+   panel into a packed, row-major array of KC rows, and each block of MC rows of A
+   into another, so that the inner loops read contiguous memory which stays in
+   cache. The inner kernel accumulates an MR-by-NR block of C in registers. The
+   row blocks of C are distributed over the shared pool of Workers.
+   */
+
+class Gemm {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Register block of C. */
+   static final int MR = 4, NR = 4;
+
+   /** Rows of a packed block of A and depth of the packed panels. */
+   static final int MC = 64, KC = 256;
+
+   /** Products of fewer multiply-adds than this use the unblocked loops. */
+   static final int THRESHOLD = 64*64*64;
+
+   private static final ThreadLocal<double[]> packedA = new ThreadLocal<double[]>() {
+      protected double[] initialValue() {
+         return new double[MC*KC];
+      }
+   };
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** C(ci+i,cj+j) += alpha * sum_l A(ai+i,aj+l) * B(bi+l,bj+j)
+   for i < m, j < n, l < k.
+   */
+
+   static void multiply (double alpha, Matrix A, int ai, int aj,
+                         Matrix B, int bi, int bj,
+                         Matrix C, int ci, int cj, int m, int n, int k) {
+      if ((long)m*n*k < THRESHOLD) {
+         unblocked(alpha,A,ai,aj,B,bi,bj,C,ci,cj,m,n,k);
+         return;
+      }
+      double[] Bp = new double[KC*roundUp(n,NR)];
+      ForkJoinPool pool = Workers.pool();
+      for (int l0 = 0; l0 < k; l0 += KC) {
+         int kc = Math.min(KC, k-l0);
+         packB(B,bi+l0,bj,kc,n,Bp);
+         RowBlocks task = new RowBlocks(alpha,A,ai,aj+l0,Bp,C,ci,cj,n,kc,0,(m+MC-1)/MC,m);
+         if (pool == null) {
+            task.compute();
+         } else {
+            pool.invoke(task);
+         }
+      }
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** The row blocks lo through hi-1 of C, split in halves over the pool. */
+
+   @SuppressWarnings("serial")
+   private static class RowBlocks extends RecursiveAction {
+      double alpha;
+      Matrix A, C;
+      double[] Bp;
+      int ai, aj, ci, cj, n, kc, lo, hi, m;
+
+      RowBlocks (double alpha, Matrix A, int ai, int aj, double[] Bp,
+                 Matrix C, int ci, int cj, int n, int kc, int lo, int hi, int m) {
+         this.alpha = alpha; this.A = A; this.ai = ai; this.aj = aj; this.Bp = Bp;
+         this.C = C; this.ci = ci; this.cj = cj; this.n = n; this.kc = kc;
+         this.lo = lo; this.hi = hi; this.m = m;
+      }
+
+      protected void compute () {
+         if (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new RowBlocks(alpha,A,ai,aj,Bp,C,ci,cj,n,kc,lo,mid,m),
+                      new RowBlocks(alpha,A,ai,aj,Bp,C,ci,cj,n,kc,mid,hi,m));
+            return;
+         }
+         double[] Ap = packedA.get();
+         int i0 = lo*MC;
+         int mc = Math.min(MC, m-i0);
+         packA(A,ai+i0,aj,mc,kc,Ap);
+         for (int j = 0; j < n; j += NR) {
+            for (int i = 0; i < mc; i += MR) {
+               kernel(alpha,Ap,i*kc,Bp,j*kc,kc,C,ci+i0+i,cj+j,
+                      Math.min(MR,mc-i),Math.min(NR,n-j));
+            }
+         }
+      }
+   }
+
+   /** Copies the kc-by-mc block of A into micro-panels of MR rows, each stored
+   column by column, padding the last with zeros.
+   */
+
+   private static void packA (Matrix A, int ai, int aj, int mc, int kc, double[] Ap) {
+      int p = 0;
+      for (int i = 0; i < mc; i += MR) {
+         int mr = Math.min(MR, mc-i);
+         for (int l = 0; l < kc; l++) {
+            for (int r = 0; r < mr; r++) {
+               Ap[p+r] = A.get(ai+i+r,aj+l);
+            }
+            for (int r = mr; r < MR; r++) {
+               Ap[p+r] = 0;
+            }
+            p += MR;
+         }
+      }
+   }
+
+   /** Copies the kc-by-n panel of B into micro-panels of NR columns, each stored
+   row by row, padding the last with zeros.
+   */
+
+   private static void packB (Matrix B, int bi, int bj, int kc, int n, double[] Bp) {
+      for (int l = 0; l < kc; l++) {
+         for (int j = 0; j < n; j += NR) {
+            int nr = Math.min(NR, n-j);
+            int p = j*kc + l*NR;
+            for (int c = 0; c < nr; c++) {
+               Bp[p+c] = B.get(bi+l,bj+j+c);
+            }
+            for (int c = nr; c < NR; c++) {
+               Bp[p+c] = 0;
+            }
+         }
+      }
+   }
+
+   /** Adds alpha times the product of a packed micro-panel of A and one of B to
+   the mr-by-nr block of C at (ci,cj).
+   */
+
+   private static void kernel (double alpha, double[] Ap, int pa, double[] Bp, int pb, int kc,
+                               Matrix C, int ci, int cj, int mr, int nr) {
+      double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+      double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+      double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+      double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+      for (int l = 0; l < kc; l++) {
+         double a0 = Ap[pa], a1 = Ap[pa+1], a2 = Ap[pa+2], a3 = Ap[pa+3];
+         double b0 = Bp[pb], b1 = Bp[pb+1], b2 = Bp[pb+2], b3 = Bp[pb+3];
+         c00 += a0*b0; c01 += a0*b1; c02 += a0*b2; c03 += a0*b3;
+         c10 += a1*b0; c11 += a1*b1; c12 += a1*b2; c13 += a1*b3;
+         c20 += a2*b0; c21 += a2*b1; c22 += a2*b2; c23 += a2*b3;
+         c30 += a3*b0; c31 += a3*b1; c32 += a3*b2; c33 += a3*b3;
+         pa += MR;
+         pb += NR;
+      }
+      double[] c = {c00, c01, c02, c03, c10, c11, c12, c13,
+                    c20, c21, c22, c23, c30, c31, c32, c33};
+      for (int i = 0; i < mr; i++) {
+         for (int j = 0; j < nr; j++) {
+            C.set(ci+i,cj+j,C.get(ci+i,cj+j) + alpha*c[i*NR+j]);
+         }
+      }
+   }
+
+   /** The classic row-by-column loops, for small products. */
+
+   private static void unblocked (double alpha, Matrix A, int ai, int aj,
+                                  Matrix B, int bi, int bj,
+                                  Matrix C, int ci, int cj, int m, int n, int k) {
+      double[] Bcolj = new double[k];
+      for (int j = 0; j < n; j++) {
+         for (int l = 0; l < k; l++) {
+            Bcolj[l] = B.get(bi+l,bj+j);
+         }
+         for (int i = 0; i < m; i++) {
+            double s = 0;
+            for (int l = 0; l < k; l++) {
+               s += A.get(ai+i,aj+l)*Bcolj[l];
+            }
+            C.set(ci+i,cj+j,C.get(ci+i,cj+j) + alpha*s);
+         }
+      }
+   }
+
+   private static int roundUp (int n, int r) {
+      return (n+r-1)/r*r;
+   }
+}
@@ -37,6 +37,12 @@ public class LUDecomposition implements java.io.Serializable {
    */
    private int[] piv;
 
+   /** Width of the panels of the blocked algorithm. */
+   private static final int NB = 64;
+
+   /** Matrices with at least this many rows and columns use the blocked algorithm. */
+   private static final int BLOCKED = 256;
+
 /* ------------------------
    Constructor
  * ------------------------ */
@@ -48,7 +54,8 @@ public class LUDecomposition implements java.io.Serializable {
 
    public LUDecomposition (Matrix A) {
 
-   // Use a "left-looking", dot-product, Crout/Doolittle algorithm.
+   // Use a "left-looking", dot-product, Crout/Doolittle algorithm, or for
+   // large matrices a "right-looking", blocked one.
 
       LU = A.getArrayCopy();
       m = A.getRowDimension();
@@ -58,6 +65,10 @@ public class LUDecomposition implements java.io.Serializable {
          piv[i] = i;
       }
       pivsign = 1;
+      if (Math.min(m,n) >= BLOCKED) {
+         factorBlocked();
+         return;
+      }
       double[] LUrowi;
       double[] LUcolj = new double[m];
 
@@ -285,7 +296,7 @@ public class LUDecomposition implements java.io.Serializable {
 
       // Copy right hand side with pivoting
       int nx = B.getColumnDimension();
-      Matrix Xmat = B.getMatrix(piv,0,nx-1);
+      Matrix Xmat = new Matrix(B.getMatrix(piv,0,nx-1).getArrayOrCopy(),n,nx);
       double[][] X = Xmat.getArray();
 
       // Solve L*Y = B(piv,:)
@@ -309,4 +320,69 @@ public class LUDecomposition implements java.io.Serializable {
       }
       return Xmat;
    }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   /** Right-looking, blocked elimination. Each panel of NB columns is factored
+   with partial pivoting, then the corresponding block row of U is solved for,
+   and the trailing submatrix is updated by a single matrix product, which
+   takes almost all of the time and is distributed over the threads of Gemm.
+   The pivots are those of the unblocked algorithm.
+   */
+
+   private void factorBlocked () {
+      Matrix X = new Matrix(LU,m,n);
+      int kmax = Math.min(m,n);
+      for (int k = 0; k < kmax; k += NB) {
+         int kend = Math.min(k+NB,kmax);
+
+         // Factor the panel, exchanging whole rows.
+
+         for (int j = k; j < kend; j++) {
+            int p = j;
+            for (int i = j+1; i < m; i++) {
+               if (Math.abs(LU[i][j]) > Math.abs(LU[p][j])) {
+                  p = i;
+               }
+            }
+            if (p != j) {
+               double[] t = LU[p]; LU[p] = LU[j]; LU[j] = t;
+               int l = piv[p]; piv[p] = piv[j]; piv[j] = l;
+               pivsign = -pivsign;
+            }
+            double[] LUrowj = LU[j];
+            if (LUrowj[j] != 0.0) {
+               for (int i = j+1; i < m; i++) {
+                  LU[i][j] /= LUrowj[j];
+               }
+            }
+            for (int i = j+1; i < m; i++) {
+               double[] LUrowi = LU[i];
+               for (int c = j+1; c < kend; c++) {
+                  LUrowi[c] -= LUrowi[j]*LUrowj[c];
+               }
+            }
+         }
+
+         // Solve for the block row of U.
+
+         for (int j = k; j < kend; j++) {
+            double[] LUrowj = LU[j];
+            for (int i = j+1; i < kend; i++) {
+               double[] LUrowi = LU[i];
+               for (int c = kend; c < n; c++) {
+                  LUrowi[c] -= LUrowi[j]*LUrowj[c];
+               }
+            }
+         }
+
+         // Update the trailing submatrix.
+
+         if (kend < m && kend < n) {
+            Gemm.multiply(-1.0,X,kend,k,X,k,kend,X,kend,kend,m-kend,n-kend,kend-k);
+         }
+      }
+   }
 }
@@ -10,6 +10,7 @@ import java.io.BufferedReader;
 import java.io.StreamTokenizer;
 
 import scikit.numerics.Jama.util.*;
+import scikit.numerics.Workers;
 
 /**
    Jama = Java Matrix class.
@@ -23,6 +24,13 @@ import scikit.numerics.Jama.util.*;
    Methods for reading and printing matrices are also included.  All the
    operations in this version of the Matrix Class involve real matrices.
    Complex matrices may be handled in a future version.
+<P>
+   Matrices are normally stored in a two-dimensional array, which getArray()
+   returns.  Matrices created by flat() or wrap(), and views of them, instead
+   store their elements in one contiguous array, which getData() returns;
+   getArray() throws UnsupportedOperationException for them, and getArrayCopy()
+   gives their elements as a two-dimensional array.  getMatrix() always returns
+   a copy; view() returns a submatrix of a flat matrix which shares its elements.
 <P>
    Five fundamental matrix decompositions, which consist of pairs or triples
    of matrices, permutation vectors, and the like, produce results in five
@@ -61,11 +69,21 @@ public class Matrix implements Cloneable, java.io.Serializable {
    Class variables
  * ------------------------ */
 
-   /** Array for internal storage of elements.
+   /** Array for internal storage of elements, or null for flat storage.
    @serial internal array storage.
    */
    private double[][] A;
 
+   /** Flat storage, in which element (i,j) is data[offset + i*rs + j*cs], or
+   null if the elements are stored in A.
+   @serial internal flat storage.
+   @serial offset of element (0,0).
+   @serial row stride.
+   @serial column stride.
+   */
+   private double[] data;
+   private int offset, rs, cs;
+
    /** Row and column dimensions.
    @serial row dimension.
    @serial column dimension.
@@ -153,10 +171,122 @@ public class Matrix implements Cloneable, java.io.Serializable {
       }
    }
 
+   /** Construct a matrix over flat storage without copying it.
+   @param data   Flat array of elements.
+   @param offset Index of element (0,0) in data.
+   @param rs     Distance in data between consecutive rows.
+   @param cs     Distance in data between consecutive columns.
+   @param m      Number of rows.
+   @param n      Number of colums.
+   */
+
+   private Matrix (double[] data, int offset, int rs, int cs, int m, int n) {
+      this.data = data;
+      this.offset = offset;
+      this.rs = rs;
+      this.cs = cs;
+      this.m = m;
+      this.n = n;
+   }
+
 /* ------------------------
    Public Methods
  * ------------------------ */
 
+   /** Construct an m-by-n matrix of zeros, stored by rows in one contiguous
+   array rather than in an array of rows.  Its elements are accessed through
+   getData(), since getArray() throws UnsupportedOperationException for it.
+   @param m    Number of rows.
+   @param n    Number of colums.
+   @return     An m-by-n flat matrix of zeros.
+   @see        #getData
+   */
+
+   public static Matrix flat (int m, int n) {
+      return new Matrix(new double[m*n],0,n,1,m,n);
+   }
+
+   /** Construct a matrix over a one-dimensional array without copying it, so
+   that the matrix and the array share their elements.  The matrix is flat, so
+   getArray() throws UnsupportedOperationException for it.
+   @param data        Array of elements.
+   @param m           Number of rows.
+   @param n           Number of colums.
+   @param columnMajor True if data is packed by columns (ala Fortran),
+                      false if packed by rows.
+   @exception  IllegalArgumentException Array length must be at least m*n.
+   */
+
+   public static Matrix wrap (double[] data, int m, int n, boolean columnMajor) {
+      return wrap(data,0,(columnMajor ? m : n),m,n,columnMajor);
+   }
+
+   /** Construct a matrix over part of a one-dimensional array without copying
+   it. Element (i,j) is data[offset+i*ld+j] if the matrix is stored by rows, and
+   data[offset+i+j*ld] if it is stored by columns.  The matrix is flat, so
+   getArray() throws UnsupportedOperationException for it.
+   @param data        Array of elements.
+   @param offset      Index of element (0,0).
+   @param ld          Leading dimension, the distance between consecutive rows
+                      (or columns, if columnMajor).
+   @param m           Number of rows.
+   @param n           Number of colums.
+   @param columnMajor True if the elements are stored by columns.
+   @exception  IllegalArgumentException Elements must lie within the array.
+   */
+
+   public static Matrix wrap (double[] data, int offset, int ld, int m, int n, boolean columnMajor) {
+      if (offset < 0 || ld < (columnMajor ? m : n) ||
+          (m > 0 && n > 0 && offset + (columnMajor ? (n-1)*ld + m : (m-1)*ld + n) > data.length)) {
+         throw new IllegalArgumentException("Elements must lie within the array.");
+      }
+      return columnMajor ? new Matrix(data,offset,1,ld,m,n) : new Matrix(data,offset,ld,1,m,n);
+   }
+
+   /** Is the matrix stored in one flat array?
+   @return     true if the matrix was created by flat() or wrap(), or is a view.
+   */
+
+   public boolean isFlat () {
+      return A == null;
+   }
+
+   /** Access the flat array of a flat matrix, shared with its views.
+   @return     The flat array of elements, or null if the matrix is stored in a
+               two-dimensional array.
+   @see        #getOffset
+   @see        #getLeadingDimension
+   */
+
+   public double[] getData () {
+      return data;
+   }
+
+   /** Index of element (0,0) in the flat array.
+   @return     offset of the matrix in getData().
+   */
+
+   public int getOffset () {
+      return offset;
+   }
+
+   /** Distance in the flat array between consecutive rows, or between
+   consecutive columns if the matrix is stored by columns.
+   @return     leading dimension of the matrix in getData().
+   */
+
+   public int getLeadingDimension () {
+      return isColumnMajor() ? cs : rs;
+   }
+
+   /** Is a flat matrix stored by columns?
+   @return     true if consecutive elements of a column are adjacent in getData().
+   */
+
+   public boolean isColumnMajor () {
+      return A == null && rs == 1 && cs != 1;
+   }
+
    /** Construct a matrix from a copy of a 2-D array.
    @param A    Two-dimensional array of doubles.
    @exception  IllegalArgumentException All rows must have the same length
@@ -183,11 +313,18 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix copy () {
-      Matrix X = new Matrix(m,n);
-      double[][] C = X.getArray();
+      Matrix X = like(m,n);
+      if (A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               X.A[i][j] = A[i][j];
+            }
+         }
+         return X;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            C[i][j] = A[i][j];
+            X.set(i,j,get(i,j));
          }
       }
       return X;
@@ -202,12 +339,24 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    /** Access the internal two-dimensional array.
    @return     Pointer to the two-dimensional array of matrix elements.
+   @exception  UnsupportedOperationException Flat matrices have no two-dimensional array.
    */
 
    public double[][] getArray () {
+      if (A == null) {
+         throw new UnsupportedOperationException("Flat matrices have no two-dimensional array.");
+      }
       return A;
    }
 
+   /** The internal two-dimensional array, or a copy for flat matrices. For
+   decompositions which only read the elements.
+   */
+
+   double[][] getArrayOrCopy () {
+      return (A != null) ? A : getArrayCopy();
+   }
+
    /** Copy the internal two-dimensional array.
    @return     Two-dimensional array copy of matrix elements.
    */
@@ -216,7 +365,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
       double[][] C = new double[m][n];
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            C[i][j] = A[i][j];
+            C[i][j] = get(i,j);
          }
       }
       return C;
@@ -228,9 +377,15 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public double[] getColumnPackedCopy () {
       double[] vals = new double[m*n];
+      if (A == null && rs == 1) {
+         for (int j = 0; j < n; j++) {
+            System.arraycopy(data,offset+j*cs,vals,j*m,m);
+         }
+         return vals;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            vals[i+j*m] = A[i][j];
+            vals[i+j*m] = get(i,j);
          }
       }
       return vals;
@@ -242,9 +397,15 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public double[] getRowPackedCopy () {
       double[] vals = new double[m*n];
+      if (A == null && cs == 1) {
+         for (int i = 0; i < m; i++) {
+            System.arraycopy(data,offset+i*rs,vals,i*n,n);
+         }
+         return vals;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            vals[i*n+j] = A[i][j];
+            vals[i*n+j] = get(i,j);
          }
       }
       return vals;
@@ -274,7 +435,13 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public double get (int i, int j) {
-      return A[i][j];
+      if (A != null) {
+         return A[i][j];
+      }
+      if (i < 0 || i >= m || j < 0 || j >= n) {
+         throw new ArrayIndexOutOfBoundsException("("+i+","+j+")");
+      }
+      return data[offset+i*rs+j*cs];
    }
 
    /** Get a submatrix.
@@ -284,15 +451,15 @@ public class Matrix implements Cloneable, java.io.Serializable {
    @param j1   Final column index
    @return     A(i0:i1,j0:j1)
    @exception  ArrayIndexOutOfBoundsException Submatrix indices
+   @see        #view
    */
 
    public Matrix getMatrix (int i0, int i1, int j0, int j1) {
-      Matrix X = new Matrix(i1-i0+1,j1-j0+1);
-      double[][] B = X.getArray();
+      Matrix X = like(i1-i0+1,j1-j0+1);
       try {
          for (int i = i0; i <= i1; i++) {
             for (int j = j0; j <= j1; j++) {
-               B[i-i0][j-j0] = A[i][j];
+               X.set(i-i0,j-j0,get(i,j));
             }
          }
       } catch(ArrayIndexOutOfBoundsException e) {
@@ -301,6 +468,29 @@ public class Matrix implements Cloneable, java.io.Serializable {
       return X;
    }
 
+   /** Get a view of a submatrix of a flat matrix, without copying it.  The
+   view shares its elements with this matrix, so that changes to either are
+   seen by both.
+   @param i0   Initial row index
+   @param i1   Final row index
+   @param j0   Initial column index
+   @param j1   Final column index
+   @return     A(i0:i1,j0:j1), sharing the elements of A
+   @exception  ArrayIndexOutOfBoundsException Submatrix indices
+   @exception  UnsupportedOperationException Only flat matrices have views.
+   @see        #getMatrix(int,int,int,int)
+   */
+
+   public Matrix view (int i0, int i1, int j0, int j1) {
+      if (A != null) {
+         throw new UnsupportedOperationException("Only flat matrices have views.");
+      }
+      if (i0 < 0 || j0 < 0 || i1 >= m || j1 >= n || i1 < i0-1 || j1 < j0-1) {
+         throw new ArrayIndexOutOfBoundsException("Submatrix indices");
+      }
+      return new Matrix(data,offset+i0*rs+j0*cs,rs,cs,i1-i0+1,j1-j0+1);
+   }
+
    /** Get a submatrix.
    @param r    Array of row indices.
    @param c    Array of column indices.
@@ -309,12 +499,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix getMatrix (int[] r, int[] c) {
-      Matrix X = new Matrix(r.length,c.length);
-      double[][] B = X.getArray();
+      Matrix X = like(r.length,c.length);
       try {
          for (int i = 0; i < r.length; i++) {
             for (int j = 0; j < c.length; j++) {
-               B[i][j] = A[r[i]][c[j]];
+               X.set(i,j,get(r[i],c[j]));
             }
          }
       } catch(ArrayIndexOutOfBoundsException e) {
@@ -332,12 +521,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix getMatrix (int i0, int i1, int[] c) {
-      Matrix X = new Matrix(i1-i0+1,c.length);
-      double[][] B = X.getArray();
+      Matrix X = like(i1-i0+1,c.length);
       try {
          for (int i = i0; i <= i1; i++) {
             for (int j = 0; j < c.length; j++) {
-               B[i-i0][j] = A[i][c[j]];
+               X.set(i-i0,j,get(i,c[j]));
             }
          }
       } catch(ArrayIndexOutOfBoundsException e) {
@@ -355,12 +543,11 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix getMatrix (int[] r, int j0, int j1) {
-      Matrix X = new Matrix(r.length,j1-j0+1);
-      double[][] B = X.getArray();
+      Matrix X = like(r.length,j1-j0+1);
       try {
          for (int i = 0; i < r.length; i++) {
             for (int j = j0; j <= j1; j++) {
-               B[i][j-j0] = A[r[i]][j];
+               X.set(i,j-j0,get(r[i],j));
             }
          }
       } catch(ArrayIndexOutOfBoundsException e) {
@@ -377,7 +564,14 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public void set (int i, int j, double s) {
-      A[i][j] = s;
+      if (A != null) {
+         A[i][j] = s;
+         return;
+      }
+      if (i < 0 || i >= m || j < 0 || j >= n) {
+         throw new ArrayIndexOutOfBoundsException("("+i+","+j+")");
+      }
+      data[offset+i*rs+j*cs] = s;
    }
 
    /** Set a submatrix.
@@ -393,7 +587,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
       try {
          for (int i = i0; i <= i1; i++) {
             for (int j = j0; j <= j1; j++) {
-               A[i][j] = X.get(i-i0,j-j0);
+               set(i,j,X.get(i-i0,j-j0));
             }
          }
       } catch(ArrayIndexOutOfBoundsException e) {
@@ -412,7 +606,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
       try {
          for (int i = 0; i < r.length; i++) {
             for (int j = 0; j < c.length; j++) {
-               A[r[i]][c[j]] = X.get(i,j);
+               set(r[i],c[j],X.get(i,j));
             }
          }
       } catch(ArrayIndexOutOfBoundsException e) {
@@ -432,7 +626,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
       try {
          for (int i = 0; i < r.length; i++) {
             for (int j = j0; j <= j1; j++) {
-               A[r[i]][j] = X.get(i,j-j0);
+               set(r[i],j,X.get(i,j-j0));
             }
          }
       } catch(ArrayIndexOutOfBoundsException e) {
@@ -452,7 +646,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
       try {
          for (int i = i0; i <= i1; i++) {
             for (int j = 0; j < c.length; j++) {
-               A[i][c[j]] = X.get(i-i0,j);
+               set(i,c[j],X.get(i-i0,j));
             }
          }
       } catch(ArrayIndexOutOfBoundsException e) {
@@ -465,11 +659,10 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix transpose () {
-      Matrix X = new Matrix(n,m);
-      double[][] C = X.getArray();
+      Matrix X = like(n,m);
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            C[j][i] = A[i][j];
+            X.set(j,i,get(i,j));
          }
       }
       return X;
@@ -484,7 +677,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
       for (int j = 0; j < n; j++) {
          double s = 0;
          for (int i = 0; i < m; i++) {
-            s += Math.abs(A[i][j]);
+            s += Math.abs(get(i,j));
          }
          f = Math.max(f,s);
       }
@@ -508,7 +701,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
       for (int i = 0; i < m; i++) {
          double s = 0;
          for (int j = 0; j < n; j++) {
-            s += Math.abs(A[i][j]);
+            s += Math.abs(get(i,j));
          }
          f = Math.max(f,s);
       }
@@ -523,7 +716,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
       double f = 0;
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            f = Maths.hypot(f,A[i][j]);
+            f = Maths.hypot(f,get(i,j));
          }
       }
       return f;
@@ -534,11 +727,18 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix uminus () {
-      Matrix X = new Matrix(m,n);
-      double[][] C = X.getArray();
+      Matrix X = like(m,n);
+      if (A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               X.A[i][j] = -A[i][j];
+            }
+         }
+         return X;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            C[i][j] = -A[i][j];
+            X.set(i,j,-get(i,j));
          }
       }
       return X;
@@ -551,11 +751,18 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix plus (Matrix B) {
       checkMatrixDimensions(B);
-      Matrix X = new Matrix(m,n);
-      double[][] C = X.getArray();
+      Matrix X = like(m,n);
+      if (A != null && B.A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               X.A[i][j] = A[i][j] + B.A[i][j];
+            }
+         }
+         return X;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            C[i][j] = A[i][j] + B.A[i][j];
+            X.set(i,j,get(i,j) + B.get(i,j));
          }
       }
       return X;
@@ -568,9 +775,17 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix plusEquals (Matrix B) {
       checkMatrixDimensions(B);
+      if (A != null && B.A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               A[i][j] = A[i][j] + B.A[i][j];
+            }
+         }
+         return this;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            A[i][j] = A[i][j] + B.A[i][j];
+            set(i,j,get(i,j) + B.get(i,j));
          }
       }
       return this;
@@ -583,11 +798,18 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix minus (Matrix B) {
       checkMatrixDimensions(B);
-      Matrix X = new Matrix(m,n);
-      double[][] C = X.getArray();
+      Matrix X = like(m,n);
+      if (A != null && B.A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               X.A[i][j] = A[i][j] - B.A[i][j];
+            }
+         }
+         return X;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            C[i][j] = A[i][j] - B.A[i][j];
+            X.set(i,j,get(i,j) - B.get(i,j));
          }
       }
       return X;
@@ -600,9 +822,17 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix minusEquals (Matrix B) {
       checkMatrixDimensions(B);
+      if (A != null && B.A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               A[i][j] = A[i][j] - B.A[i][j];
+            }
+         }
+         return this;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            A[i][j] = A[i][j] - B.A[i][j];
+            set(i,j,get(i,j) - B.get(i,j));
          }
       }
       return this;
@@ -615,11 +845,18 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix arrayTimes (Matrix B) {
       checkMatrixDimensions(B);
-      Matrix X = new Matrix(m,n);
-      double[][] C = X.getArray();
+      Matrix X = like(m,n);
+      if (A != null && B.A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               X.A[i][j] = A[i][j] * B.A[i][j];
+            }
+         }
+         return X;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            C[i][j] = A[i][j] * B.A[i][j];
+            X.set(i,j,get(i,j) * B.get(i,j));
          }
       }
       return X;
@@ -632,9 +869,17 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix arrayTimesEquals (Matrix B) {
       checkMatrixDimensions(B);
+      if (A != null && B.A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               A[i][j] = A[i][j] * B.A[i][j];
+            }
+         }
+         return this;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            A[i][j] = A[i][j] * B.A[i][j];
+            set(i,j,get(i,j) * B.get(i,j));
          }
       }
       return this;
@@ -647,11 +892,18 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix arrayRightDivide (Matrix B) {
       checkMatrixDimensions(B);
-      Matrix X = new Matrix(m,n);
-      double[][] C = X.getArray();
+      Matrix X = like(m,n);
+      if (A != null && B.A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               X.A[i][j] = A[i][j] / B.A[i][j];
+            }
+         }
+         return X;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            C[i][j] = A[i][j] / B.A[i][j];
+            X.set(i,j,get(i,j) / B.get(i,j));
          }
       }
       return X;
@@ -664,9 +916,17 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix arrayRightDivideEquals (Matrix B) {
       checkMatrixDimensions(B);
+      if (A != null && B.A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               A[i][j] = A[i][j] / B.A[i][j];
+            }
+         }
+         return this;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            A[i][j] = A[i][j] / B.A[i][j];
+            set(i,j,get(i,j) / B.get(i,j));
          }
       }
       return this;
@@ -679,11 +939,18 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix arrayLeftDivide (Matrix B) {
       checkMatrixDimensions(B);
-      Matrix X = new Matrix(m,n);
-      double[][] C = X.getArray();
+      Matrix X = like(m,n);
+      if (A != null && B.A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               X.A[i][j] = B.A[i][j] / A[i][j];
+            }
+         }
+         return X;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            C[i][j] = B.A[i][j] / A[i][j];
+            X.set(i,j,B.get(i,j) / get(i,j));
          }
       }
       return X;
@@ -696,9 +963,17 @@ public class Matrix implements Cloneable, java.io.Serializable {
 
    public Matrix arrayLeftDivideEquals (Matrix B) {
       checkMatrixDimensions(B);
+      if (A != null && B.A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               A[i][j] = B.A[i][j] / A[i][j];
+            }
+         }
+         return this;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            A[i][j] = B.A[i][j] / A[i][j];
+            set(i,j,B.get(i,j) / get(i,j));
          }
       }
       return this;
@@ -710,11 +985,18 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix times (double s) {
-      Matrix X = new Matrix(m,n);
-      double[][] C = X.getArray();
+      Matrix X = like(m,n);
+      if (A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               X.A[i][j] = s*A[i][j];
+            }
+         }
+         return X;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            C[i][j] = s*A[i][j];
+            X.set(i,j,s*get(i,j));
          }
       }
       return X;
@@ -726,15 +1008,24 @@ public class Matrix implements Cloneable, java.io.Serializable {
    */
 
    public Matrix timesEquals (double s) {
+      if (A != null) {
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               A[i][j] = s*A[i][j];
+            }
+         }
+         return this;
+      }
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            A[i][j] = s*A[i][j];
+            set(i,j,s*get(i,j));
          }
       }
       return this;
    }
 
-   /** Linear algebraic matrix multiplication, A * B
+   /** Linear algebraic matrix multiplication, A * B. Large products are computed
+   in cache sized blocks, distributed over several threads.
    @param B    another matrix
    @return     Matrix product, A * B
    @exception  IllegalArgumentException Matrix inner dimensions must agree.
@@ -744,25 +1035,21 @@ public class Matrix implements Cloneable, java.io.Serializable {
       if (B.m != n) {
          throw new IllegalArgumentException("Matrix inner dimensions must agree.");
       }
-      Matrix X = new Matrix(m,B.n);
-      double[][] C = X.getArray();
-      double[] Bcolj = new double[n];
-      for (int j = 0; j < B.n; j++) {
-         for (int k = 0; k < n; k++) {
-            Bcolj[k] = B.A[k][j];
-         }
-         for (int i = 0; i < m; i++) {
-            double[] Arowi = A[i];
-            double s = 0;
-            for (int k = 0; k < n; k++) {
-               s += Arowi[k]*Bcolj[k];
-            }
-            C[i][j] = s;
-         }
-      }
+      Matrix X = like(m,B.n);
+      Gemm.multiply(1.0,this,0,0,B,0,0,X,0,0,m,B.n,n);
       return X;
    }
 
+   /** Sets the number of threads used by large matrix products. The default is
+   the number of available processors.  The threads are those of
+   scikit.numerics.Workers, which are shared with the FFTs and sparse matrices.
+   @param threads    Number of threads, 1 for serial products.
+   */
+
+   public static void setThreads (int threads) {
+      Workers.setThreads(threads);
+   }
+
    /** LU Decomposition
    @return     LUDecomposition
    @see LUDecomposition
@@ -808,6 +1095,16 @@ public class Matrix implements Cloneable, java.io.Serializable {
       return new EigenvalueDecomposition(this);
    }
 
+   /** Lowest eigenvalues and eigenvectors of a symmetric matrix
+   @param k    Number of eigenvalues.
+   @return     SymmetricEigenvalueDecomposition
+   @see SymmetricEigenvalueDecomposition
+   */
+
+   public SymmetricEigenvalueDecomposition eig (int k) {
+      return new SymmetricEigenvalueDecomposition(this,k);
+   }
+
    /** Solve A*X = B
    @param B    right hand side
    @return     solution if A is square, least squares solution otherwise
@@ -866,7 +1163,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
    public double trace () {
       double t = 0;
       for (int i = 0; i < Math.min(m,n); i++) {
-         t += A[i][i];
+         t += get(i,i);
       }
       return t;
    }
@@ -965,7 +1262,7 @@ public class Matrix implements Cloneable, java.io.Serializable {
       output.println();  // start on new line.
       for (int i = 0; i < m; i++) {
          for (int j = 0; j < n; j++) {
-            String s = format.format(A[i][j]); // format the number
+            String s = format.format(get(i,j)); // format the number
             int padding = Math.max(1,width-s.length()); // At _least_ 1 space
             for (int k = 0; k < padding; k++)
                output.print(' ');
@@ -1036,6 +1333,15 @@ public static Matrix read (BufferedReader input) throws java.io.IOException {
    Private Methods
  * ------------------------ */
 
+   /** A new m-by-n matrix of zeros, stored like this one. **/
+
+   private Matrix like (int m, int n) {
+      if (A != null) {
+         return new Matrix(m,n);
+      }
+      return isColumnMajor() ? new Matrix(new double[m*n],0,1,m,m,n) : flat(m,n);
+   }
+
    /** Check if size(A) == size(B) **/
 
    private void checkMatrixDimensions (Matrix B) {
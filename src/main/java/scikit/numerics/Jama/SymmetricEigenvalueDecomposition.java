@@ -0,0 +1,439 @@
+package scikit.numerics.Jama;
+
+import java.util.Random;
+
+/** Lowest eigenvalues, and optionally eigenvectors, of a real symmetric matrix.
+<P>
+    For a symmetric n-by-n matrix A and k <= n, computes the k smallest
+    eigenvalues, in ascending order, and if requested the corresponding
+    orthonormal eigenvectors as the columns of the n-by-k matrix V, so that
+    A*V = V*D.
+<P>
+    A is reduced to tridiagonal form by Householder transformations, as in
+    EigenvalueDecomposition, but the transformations are not accumulated.
+    The eigenvalues of the tridiagonal matrix are found by bisection on
+    Sturm sequence counts, its eigenvectors by inverse iteration, and these
+    are transformed back to eigenvectors of A. Beyond the reduction, which
+    works in place on a single copy of A, the cost is O(n*k) time for the
+    eigenvalues and O(n*n*k) for the eigenvectors, where the complete
+    decomposition takes O(n^3) and stores n-by-n eigenvectors.
+<P>
+    Only the upper triangle of A is referenced.
+**/
+
+@SuppressWarnings("serial")
+public class SymmetricEigenvalueDecomposition implements java.io.Serializable {
+
+/* ------------------------
+   Class variables
+ * ------------------------ */
+
+   /** Row and column dimension, and number of eigenvalues.
+   @serial matrix dimension.
+   @serial number of eigenvalues.
+   */
+   private int n, k;
+
+   /** Array for internal storage of eigenvalues.
+   @serial internal storage of eigenvalues.
+   */
+   private double[] lambda;
+
+   /** Array for internal storage of eigenvectors, or null if not computed.
+   @serial internal storage of eigenvectors.
+   */
+   private double[][] V;
+
+   /** Tridiagonal form, and Householder vectors of the reduction.
+   */
+   private transient double[] d, e, h;
+   private transient double[][] W;
+
+   /** Number of inverse iterations for each eigenvector. */
+   private static final int ITERATIONS = 3;
+
+/* ------------------------
+   Constructor
+ * ------------------------ */
+
+   /** Compute the k smallest eigenvalues and their eigenvectors.
+   @param A    Square, symmetric matrix.
+   @param k    Number of eigenvalues, 0 <= k <= n.
+   */
+
+   public SymmetricEigenvalueDecomposition (Matrix A, int k) {
+      this(A,k,true);
+   }
+
+   /** Compute the k smallest eigenvalues and, if vectors, their eigenvectors.
+   @param A       Square, symmetric matrix.
+   @param k       Number of eigenvalues, 0 <= k <= n.
+   @param vectors False to compute eigenvalues only.
+   @exception  IllegalArgumentException Matrix must be square, k in range.
+   */
+
+   public SymmetricEigenvalueDecomposition (Matrix A, int k, boolean vectors) {
+      n = A.getRowDimension();
+      if (A.getColumnDimension() != n) {
+         throw new IllegalArgumentException("Matrix must be square.");
+      }
+      if (k < 0 || k > n) {
+         throw new IllegalArgumentException("Number of eigenvalues must be between 0 and "+n+".");
+      }
+      this.k = k;
+      W = A.getArrayCopy();
+      d = new double[n];
+      e = new double[n];
+      h = new double[n];
+      lambda = new double[k];
+      if (n > 0) {
+         tridiagonalize();
+         bisect();
+         if (vectors) {
+            V = new double[n][k];
+            invert();
+         }
+      }
+      W = null;
+   }
+
+/* ------------------------
+   Public Methods
+ * ------------------------ */
+
+   /** Return the eigenvector matrix
+   @return     V, n-by-k
+   @exception  IllegalStateException Eigenvectors were not computed.
+   */
+
+   public Matrix getV () {
+      if (V == null) {
+         throw new IllegalStateException("Eigenvectors were not computed.");
+      }
+      return new Matrix(V,n,k);
+   }
+
+   /** Return the eigenvalues
+   @return     the k smallest eigenvalues, in ascending order
+   */
+
+   public double[] getRealEigenvalues () {
+      return lambda;
+   }
+
+   /** Return the diagonal eigenvalue matrix
+   @return     D, k-by-k
+   */
+
+   public Matrix getD () {
+      Matrix X = new Matrix(k,k);
+      for (int i = 0; i < k; i++) {
+         X.set(i,i,lambda[i]);
+      }
+      return X;
+   }
+
+/* ------------------------
+   Private Methods
+ * ------------------------ */
+
+   // Householder reduction to tridiagonal form. This is tred2 of
+   // EigenvalueDecomposition without the accumulation of the
+   // transformations, on the transpose, so that the inner loops run along
+   // rows. On return the diagonal is in d, the subdiagonal in e[1..n-1],
+   // and the i'th transformation is I - u*u'/h[i] with u = W[i][0..i-1].
+
+   private void tridiagonalize () {
+      for (int j = 0; j < n; j++) {
+         d[j] = W[j][n-1];
+      }
+      for (int i = n-1; i > 0; i--) {
+
+         // Scale to avoid under/overflow.
+
+         double scale = 0.0;
+         double hi = 0.0;
+         for (int k = 0; k < i; k++) {
+            scale = scale + Math.abs(d[k]);
+         }
+         if (scale == 0.0) {
+            e[i] = d[i-1];
+            for (int j = 0; j < i; j++) {
+               d[j] = W[j][i-1];
+               W[j][i] = 0.0;
+               W[i][j] = 0.0;
+            }
+         } else {
+
+            // Generate Householder vector.
+
+            for (int k = 0; k < i; k++) {
+               d[k] /= scale;
+               hi += d[k] * d[k];
+            }
+            double f = d[i-1];
+            double g = Math.sqrt(hi);
+            if (f > 0) {
+               g = -g;
+            }
+            e[i] = scale * g;
+            hi = hi - f * g;
+            d[i-1] = f - g;
+            for (int j = 0; j < i; j++) {
+               e[j] = 0.0;
+            }
+
+            // Apply similarity transformation to remaining columns.
+
+            for (int j = 0; j < i; j++) {
+               double[] Wrowj = W[j];
+               f = d[j];
+               W[i][j] = f;
+               g = e[j] + Wrowj[j] * f;
+               for (int k = j+1; k <= i-1; k++) {
+                  g += Wrowj[k] * d[k];
+                  e[k] += Wrowj[k] * f;
+               }
+               e[j] = g;
+            }
+            f = 0.0;
+            for (int j = 0; j < i; j++) {
+               e[j] /= hi;
+               f += e[j] * d[j];
+            }
+            double hh = f / (hi + hi);
+            for (int j = 0; j < i; j++) {
+               e[j] -= hh * d[j];
+            }
+            for (int j = 0; j < i; j++) {
+               double[] Wrowj = W[j];
+               f = d[j];
+               g = e[j];
+               for (int k = j; k <= i-1; k++) {
+                  Wrowj[k] -= (f * e[k] + g * d[k]);
+               }
+               d[j] = Wrowj[i-1];
+               Wrowj[i] = 0.0;
+            }
+         }
+         h[i] = hi;
+      }
+      for (int i = 0; i < n; i++) {
+         d[i] = W[i][i];
+      }
+      e[0] = 0.0;
+   }
+
+   // Number of eigenvalues of the tridiagonal matrix less than x, by the
+   // signs of the pivots of T - x*I.
+
+   private int count (double x, double pivmin) {
+      int c = 0;
+      double q = 0.0;
+      for (int i = 0; i < n; i++) {
+         q = (i == 0) ? d[0] - x : d[i] - x - e[i]*e[i]/q;
+         if (Math.abs(q) < pivmin) {
+            q = -pivmin;
+         }
+         if (q < 0) {
+            c++;
+         }
+      }
+      return c;
+   }
+
+   // The k smallest eigenvalues of the tridiagonal matrix, by bisection
+   // within the Gershgorin interval.
+
+   private void bisect () {
+      double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+      double emax = 0.0;
+      for (int i = 0; i < n; i++) {
+         double r = Math.abs(e[i]) + (i+1 < n ? Math.abs(e[i+1]) : 0.0);
+         lo = Math.min(lo,d[i] - r);
+         hi = Math.max(hi,d[i] + r);
+         emax = Math.max(emax,e[i]*e[i]);
+      }
+      double eps = Math.pow(2.0,-52.0);
+      double tnorm = Math.max(Math.abs(lo),Math.abs(hi));
+      double pivmin = Double.MIN_NORMAL * Math.max(1.0,emax);
+      lo = lo - 2*eps*tnorm - pivmin;
+      hi = hi + 2*eps*tnorm + pivmin;
+      for (int j = 0; j < k; j++) {
+         double a = lo, b = hi;
+         while (b - a > 2*eps*(Math.abs(a) + Math.abs(b)) + pivmin) {
+            double x = 0.5*(a + b);
+            if (x <= a || x >= b) {
+               break;
+            }
+            if (count(x,pivmin) > j) {
+               b = x;
+            } else {
+               a = x;
+            }
+         }
+         lambda[j] = 0.5*(a + b);
+         lo = a;
+      }
+   }
+
+   // Eigenvectors of the tridiagonal matrix by inverse iteration, each
+   // orthogonalized against those of nearby eigenvalues, and transformed back
+   // to eigenvectors of A.
+
+   private void invert () {
+      double eps = Math.pow(2.0,-52.0);
+      double tnorm = 0.0;
+      for (int i = 0; i < n; i++) {
+         tnorm = Math.max(tnorm,Math.abs(d[i]) + Math.abs(e[i]) + (i+1 < n ? Math.abs(e[i+1]) : 0.0));
+      }
+      if (tnorm == 0.0) {
+         // T = 0: every vector is an eigenvector, and any scale will do.
+         tnorm = 1.0;
+      }
+      double ortol = 1e-3 * tnorm;
+      double[][] Y = new double[k][];
+      double[] diag = new double[n], up1 = new double[n], up2 = new double[n], mult = new double[n];
+      boolean[] swap = new boolean[n];
+      Random random = new Random(0);
+      double shift = 0.0;
+      int first = 0;   // first eigenvalue of the current cluster
+      for (int j = 0; j < k; j++) {
+
+         // Separate equal eigenvalues slightly, so that inverse iteration
+         // finds independent vectors.
+
+         double x = lambda[j];
+         if (j > 0) {
+            if (x - lambda[j-1] > ortol) {
+               first = j;
+            }
+            if (x - shift < 10*eps*tnorm) {
+               x = shift + 10*eps*tnorm;
+            }
+         }
+         shift = x;
+         factor(x,eps*tnorm,diag,up1,up2,mult,swap);
+
+         double[] y = new double[n];
+         for (int i = 0; i < n; i++) {
+            y[i] = random.nextDouble() - 0.5;
+         }
+         for (int it = 0; it < ITERATIONS; it++) {
+            solve(diag,up1,up2,mult,swap,y);
+            for (int l = first; l < j; l++) {
+               double s = 0.0;
+               for (int i = 0; i < n; i++) {
+                  s += Y[l][i]*y[i];
+               }
+               for (int i = 0; i < n; i++) {
+                  y[i] -= s*Y[l][i];
+               }
+            }
+            // Scale by the largest element before normalizing, as in
+            // LAPACK's dstein, so that the sum of squares cannot overflow.
+
+            double ymax = 0.0;
+            for (int i = 0; i < n; i++) {
+               ymax = Math.max(ymax,Math.abs(y[i]));
+            }
+            double s = 0.0;
+            for (int i = 0; i < n; i++) {
+               y[i] /= ymax;
+               s += y[i]*y[i];
+            }
+            s = 1.0/Math.sqrt(s);
+            for (int i = 0; i < n; i++) {
+               y[i] *= s;
+            }
+         }
+         Y[j] = y;
+      }
+
+      // Apply the Householder transformations in the order of their
+      // accumulation in EigenvalueDecomposition.
+
+      for (int j = 0; j < k; j++) {
+         double[] y = Y[j].clone();
+         for (int i = 1; i < n; i++) {
+            if (h[i] != 0.0) {
+               double[] u = W[i];
+               double s = 0.0;
+               for (int l = 0; l < i; l++) {
+                  s += u[l]*y[l];
+               }
+               s /= h[i];
+               for (int l = 0; l < i; l++) {
+                  y[l] -= s*u[l];
+               }
+            }
+         }
+         for (int i = 0; i < n; i++) {
+            V[i][j] = y[i];
+         }
+      }
+   }
+
+   // Gaussian elimination with partial pivoting of T - x*I into unit lower
+   // bidiagonal multipliers, with row interchanges, and an upper triangular
+   // factor with two superdiagonals. Pivots smaller in magnitude than tiny,
+   // such as the ~1e-308 left by an eigenvalue which is exactly zero, are
+   // replaced by tiny of the same sign.
+
+   private void factor (double x, double tiny, double[] diag, double[] up1, double[] up2,
+                        double[] mult, boolean[] swap) {
+      double a = d[0] - x;
+      double b = (n > 1) ? e[1] : 0.0;
+      for (int i = 0; i < n-1; i++) {
+         double c = e[i+1];
+         double a1 = d[i+1] - x;
+         double b1 = (i+2 < n) ? e[i+2] : 0.0;
+         if (Math.abs(a) >= Math.abs(c)) {
+            a = clamp(a,tiny);
+            swap[i] = false;
+            mult[i] = c/a;
+            diag[i] = a;
+            up1[i] = b;
+            up2[i] = 0.0;
+            a = a1 - mult[i]*b;
+            b = b1;
+         } else {
+            c = clamp(c,tiny);
+            swap[i] = true;
+            mult[i] = a/c;
+            diag[i] = c;
+            up1[i] = a1;
+            up2[i] = b1;
+            a = b - mult[i]*a1;
+            b = -mult[i]*b1;
+         }
+      }
+      diag[n-1] = clamp(a,tiny);
+   }
+
+   private static double clamp (double pivot, double tiny) {
+      return (Math.abs(pivot) < tiny) ? Math.copySign(tiny,pivot) : pivot;
+   }
+
+   // Solves (T - x*I)*y = y with the factors of factor().
+
+   private void solve (double[] diag, double[] up1, double[] up2, double[] mult,
+                       boolean[] swap, double[] y) {
+      for (int i = 0; i < n-1; i++) {
+         if (swap[i]) {
+            double t = y[i]; y[i] = y[i+1]; y[i+1] = t;
+         }
+         y[i+1] -= mult[i]*y[i];
+      }
+      for (int i = n-1; i >= 0; i--) {
+         double s = y[i];
+         if (i+1 < n) {
+            s -= up1[i]*y[i+1];
+         }
+         if (i+2 < n) {
+            s -= up2[i]*y[i+2];
+         }
+         y[i] = s/diag[i];
+      }
+   }
+}
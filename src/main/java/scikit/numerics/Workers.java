@@ -0,0 +1,42 @@
+package scikit.numerics;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The pool of worker threads shared by the parallel numerics: the managed FFTs,
+ * large Jama matrix products and sparse matrix products. The pool is created
+ * when first needed, with one thread per processor unless setThreads() asks for
+ * another number.
+ */
+public class Workers {
+	private static int threads = Runtime.getRuntime().availableProcessors();
+	private static ForkJoinPool pool;
+
+	/**
+	 * Sets the number of worker threads, 1 for serial computation. If the number
+	 * changes, the current pool is shut down and a new one is created when next
+	 * needed, so this should not be called while parallel computations run.
+	 */
+	public static synchronized void setThreads(int n) {
+		n = Math.max(1, n);
+		if (n != threads) {
+			threads = n;
+			if (pool != null) {
+				pool.shutdown();
+				pool = null;
+			}
+		}
+	}
+
+	/** Returns the number of worker threads. */
+	public static synchronized int threads() {
+		return threads;
+	}
+
+	/** Returns the shared pool, or null if computations should run serially. */
+	public static synchronized ForkJoinPool pool() {
+		if (pool == null && threads > 1)
+			pool = new ForkJoinPool(threads);
+		return pool;
+	}
+}
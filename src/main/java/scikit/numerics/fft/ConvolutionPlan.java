@@ -0,0 +1,28 @@
+package scikit.numerics.fft;
+
+/**
+ * A convolution kernel evaluated once at every wavevector of a particular transform,
+ * and stored in the order of its spectrum. Repeated convolutions with the same kernel
+ * then reduce to a transform, a multiplication, and an inverse transform. Plans are
+ * created by FFT2D.plan() or FFT3D.plan() and may only be passed back to the transform
+ * which created them. The kernel is evaluated again on first use after setLengths().
+ */
+public class ConvolutionPlan {
+	final Object fft;
+	final Object fn;         // a Function2D or Function3D
+	final boolean symmetric; // fn is even in each component of k
+	double[] multipliers;
+	int lengths = -1;        // the lengths version of fft for which multipliers were built
+
+	ConvolutionPlan(Object fft, Object fn, boolean symmetric) {
+		this.fft = fft;
+		this.fn = fn;
+		this.symmetric = symmetric;
+	}
+
+	// returns the signed wavenumber index of the i'th entry along a dimension of length
+	// dim in wraparound order, consistent with the range -dim/2 <= x < dim/2 for even dim
+	static int wavenumber(int i, int dim) {
+		return (i >= dim - dim/2) ? i - dim : i;
+	}
+}
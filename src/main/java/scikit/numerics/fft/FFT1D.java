@@ -2,7 +2,6 @@ package scikit.numerics.fft;
 
 import static java.lang.Math.PI;
 import scikit.numerics.fft.managed.ComplexDoubleFFT;
-import scikit.numerics.fft.managed.ComplexDoubleFFT_Mixed;
 import scikit.numerics.fn.Function1D;
 
 public class FFT1D {
@@ -17,7 +16,7 @@ public class FFT1D {
 	
 	public FFT1D(int dim1) {
 		this.dim1 = dim1;
-		fft = new ComplexDoubleFFT_Mixed(dim1);
+		fft = ComplexDoubleFFT.forLength(dim1);
 		scratch = new double[2*dim1];
 		dx1 = 1;
 	}
@@ -34,7 +33,7 @@ public class FFT1D {
 		}
 		
 		fft.transform(scratch);
-		scratch = fft.toWraparoundOrder(scratch);
+		fft.toWraparoundOrder(scratch, 0, 2, scratch);
 		
 		for (int x = -dim1/2; x < dim1/2; x++) {
 			int i = (x+dim1)%dim1;
@@ -51,7 +50,7 @@ public class FFT1D {
 		}
 		
 		fft.transform(scratch);
-		scratch = fft.toWraparoundOrder(scratch);
+		fft.toWraparoundOrder(scratch, 0, 2, scratch);
 
 		for (int x = -dim1/2; x < dim1/2; x++) {
 			int i = (x+dim1)%dim1;
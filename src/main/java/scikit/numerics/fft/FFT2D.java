@@ -1,7 +1,11 @@
 package scikit.numerics.fft;
 
 import static java.lang.Math.PI;
+
+import java.util.Arrays;
+
 import scikit.numerics.fft.managed.ComplexDouble2DFFT;
+import scikit.numerics.fft.managed.RealDouble2DFFT;
 import scikit.numerics.fn.Function2D;
 
 // TODO: copy interface from FFT3D
@@ -12,20 +16,57 @@ public class FFT2D {
 	
 	public int dim1, dim2;
 	ComplexDouble2DFFT fft;
+	RealDouble2DFFT rfft; // non-null in half spectrum mode
+	RealPairs pairs;
 	double[] scratch;
 	double dx1, dx2;
+	int lengthsVersion = 0; // incremented by setLengths() to invalidate plans
 	
 	public FFT2D(int dim1, int dim2) {
+		this(dim1, dim2, false);
+	}
+	
+	/**
+	 * In half spectrum mode, transform(phi, fn), the convolutions and
+	 * buildFourierArrayFromReal() use a real to complex transform which stores only
+	 * the coefficients with k1 >= 0. This halves both the arithmetic and the scratch
+	 * memory, but transform(phi, fn) then visits only k1 >= 0, as FFT3DNative does.
+	 * Requires even dim1, or throws IllegalArgumentException.
+	 */
+	public FFT2D(int dim1, int dim2, boolean halfSpectrum) {
+		if (halfSpectrum && dim1 % 2 != 0)
+			throw new IllegalArgumentException("Half spectrum mode requires even dim1 : "+dim1);
 		this.dim1 = dim1;
 		this.dim2 = dim2;
-		fft = new ComplexDouble2DFFT(dim1, dim2);
-		scratch = new double[2*dim1*dim2];
+		// x1 is the fastest varying index, i.e., the columns of fft
+		fft = new ComplexDouble2DFFT(dim2, dim1);
+		pairs = new RealPairs(dim1, dim2, 1);
+		if (halfSpectrum) {
+			// x1 is the fastest varying index, i.e., the columns of rfft
+			rfft = new RealDouble2DFFT(dim2, dim1);
+			scratch = new double[rfft.spectrumLength()];
+		}
+		else {
+			scratch = new double[2*dim1*dim2];
+		}
 		dx1 = dx2 = 1;
 	}
 	
+	/**
+	 * Distributes the row and column transforms over the shared worker threads if
+	 * threads is more than 1. The number of worker threads is set by
+	 * Workers.setThreads(), not here.
+	 */
+	public void setThreads(int threads) {
+		fft.setThreads(threads);
+		if (rfft != null)
+			rfft.setThreads(threads);
+	}
+	
 	public void setLengths(double L1, double L2) {
 		dx1 = L1/dim1;
 		dx2 = L2/dim2;
+		lengthsVersion++;
 	}
 	
 	public void transform(double[] src, double[] dst) {
@@ -34,7 +75,20 @@ public class FFT2D {
 			dst[2*i+1] = 0;
 		}
 		fft.transform(dst);
-		fft.toWraparoundOrder(dst);
+		fft.toWraparoundOrder(dst, 2*dim1, dst);
+	}
+	
+	/**
+	 * Transforms each real field src[f] into dst[f], as transform(src[f], dst[f])
+	 * would. Pairs of fields share a single complex transform.
+	 */
+	public void transform(double[][] src, double[][] dst) {
+		for (int f = 0; f < src.length; f += 2) {
+			boolean pair = f+1 < src.length;
+			pairs.pack(src[f], pair ? src[f+1] : null, dst[f]);
+			fft.transform(dst[f]);
+			pairs.separate(dst[f], dst[f], pair ? dst[f+1] : null, dx1*dx2);
+		}
 	}
 	
 	public void backtransform(double[] src, double[] dst) {
@@ -47,6 +101,10 @@ public class FFT2D {
 	}
 	
 	public void transform(double[] phi, MapFn fn) {
+		if (rfft != null) {
+			transformHalf(phi, fn);
+			return;
+		}
 		// TODO: replace following with
 		// transform(phi, scratch);
 		for (int i = dim1*dim2-1; i >= 0; i--) {
@@ -54,7 +112,7 @@ public class FFT2D {
 			scratch[2*i+1] = 0;
 		}
 		fft.transform(scratch);
-		scratch = fft.toWraparoundOrder(scratch);
+		fft.toWraparoundOrder(scratch, 2*dim1, scratch);
 		
 		double L1 = dim1*dx1;
 		double L2 = dim2*dx2;
@@ -70,6 +128,10 @@ public class FFT2D {
 	
 	// It is OK if src and dst are the same array.
 	public void convolve(double[] src, double[] dst, Function2D fn) {
+		if (rfft != null) {
+			convolveHalf(src, dst, fn, null);
+			return;
+		}
 		// TODO: replace following with
 		// transform(phi, scratch);
 		for (int i = dim1*dim2-1; i >= 0; i--) {
@@ -77,7 +139,7 @@ public class FFT2D {
 			scratch[2*i+1] = 0;
 		}
 		fft.transform(scratch);
-		scratch = fft.toWraparoundOrder(scratch);
+		fft.toWraparoundOrder(scratch, 2*dim1, scratch);
 
 		double L1 = dim1*dx1;
 		double L2 = dim2*dx2;
@@ -101,6 +163,10 @@ public class FFT2D {
 	}
 	
 	public void convolve(double[] src, double[] dst, double[] fn) {
+		if (rfft != null) {
+			convolveHalf(src, dst, null, fn);
+			return;
+		}
 		double L1 = dim1*dx1;
 		double L2 = dim2*dx2;
 		for (int i = dim1*dim2-1; i >= 0; i--) {
@@ -109,7 +175,7 @@ public class FFT2D {
 		}
 		
 		fft.transform(scratch);
-		scratch = fft.toWraparoundOrder(scratch);
+		fft.toWraparoundOrder(scratch, 2*dim1, scratch);
 		
 		for (int i = 0; i < dim1*dim2; i++) {
 			scratch[2*i+0] *= fn[i];
@@ -122,6 +188,84 @@ public class FFT2D {
 		}
 	}
 	
+	/**
+	 * Returns a plan for repeated convolutions with the kernel fn(k1, k2). If
+	 * symmetric is true, fn must be even in k1 and k2 separately and is evaluated only
+	 * once for each (|k1|, |k2|).
+	 */
+	public ConvolutionPlan plan(Function2D fn, boolean symmetric) {
+		return new ConvolutionPlan(this, fn, symmetric);
+	}
+	
+	public ConvolutionPlan plan(Function2D fn) {
+		return plan(fn, false);
+	}
+	
+	/**
+	 * Convolves src with the kernel of plan into dst. The kernel is evaluated only when
+	 * the plan is first used, or after setLengths(). It is OK if src and dst are the
+	 * same array.
+	 */
+	public void convolve(double[] src, double[] dst, ConvolutionPlan plan) {
+		double[] J = multipliers(plan);
+		if (rfft != null) {
+			rfft.transform(src, scratch);
+		}
+		else {
+			for (int i = dim1*dim2-1; i >= 0; i--) {
+				scratch[2*i+0] = src[i];
+				scratch[2*i+1] = 0;
+			}
+			fft.transform(scratch);
+		}
+		for (int i = 0; i < J.length; i++) {
+			scratch[2*i+0] *= J[i];
+			scratch[2*i+1] *= J[i];
+		}
+		if (rfft != null) {
+			rfft.backtransform(scratch, dst);
+		}
+		else {
+			fft.backtransform(scratch);
+			for (int i = 0; i < dim1*dim2; i++)
+				dst[i] = scratch[2*i+0];
+		}
+	}
+	
+	public void convolve(double[][] src, double[][] dst, ConvolutionPlan plan) {
+		ConvolutionPlan[] plans = new ConvolutionPlan[src.length];
+		Arrays.fill(plans, plan);
+		convolve(src, dst, plans);
+	}
+	
+	/**
+	 * Convolves each field src[f] with the kernel of plans[f] into dst[f]. The kernels
+	 * must be even, fn(-k1, -k2) = fn(k1, k2). Pairs of fields share a single complex
+	 * transform, or, in half spectrum mode, each field takes a half size transform.
+	 * It is OK if src and dst are the same arrays.
+	 */
+	public void convolve(double[][] src, double[][] dst, ConvolutionPlan[] plans) {
+		if (rfft != null) {
+			for (int f = 0; f < src.length; f++)
+				convolve(src[f], dst[f], plans[f]);
+			return;
+		}
+		for (int f = 0; f < src.length; f += 2) {
+			boolean pair = f+1 < src.length;
+			double[] ja = multipliers(plans[f]);
+			double[] jb = pair ? multipliers(plans[f+1]) : ja;
+			pairs.pack(src[f], pair ? src[f+1] : null, scratch);
+			fft.transform(scratch);
+			pairs.multiply(scratch, ja, jb);
+			fft.backtransform(scratch);
+			for (int i = 0; i < dim1*dim2; i++) {
+				dst[f][i] = scratch[2*i+0];
+				if (pair)
+					dst[f+1][i] = scratch[2*i+1];
+			}
+		}
+	}
+	
 	
 	public double[] buildFourierArray(Function2D fn) {
 		double[] ret = new double[dim1*dim2];
@@ -164,6 +308,18 @@ public class FFT2D {
 				ret[i] = fn.eval(dx1*x1, dx2*x2);
 			}
 		}
+		if (rfft != null) {
+			// the real part of the coefficient at (-k1, -k2) equals that at (k1, k2)
+			rfft.transform(ret, scratch);
+			int dim1p = dim1/2 + 1;
+			for (int x2 = 0; x2 < dim2; x2++) {
+				for (int x1 = 0; x1 < dim1; x1++) {
+					int j = (x1 <= dim1/2) ? dim1p*x2 + x1 : dim1p*((dim2-x2)%dim2) + dim1-x1;
+					ret[dim1*x2 + x1] = scratch[2*j+0]*dx1*dx2;
+				}
+			}
+			return;
+		}
 		transform(ret, scratch);
 		for (int i=0; i < dim1*dim2; i++) {
 			ret[i] = scratch[2*i+0];
@@ -173,4 +329,88 @@ public class FFT2D {
 	public double[] getScratch() {
 		return scratch;
 	}
+	
+	private void transformHalf(double[] phi, MapFn fn) {
+		rfft.transform(phi, scratch);
+		
+		double L1 = dim1*dx1;
+		double L2 = dim2*dx2;
+		int dim1p = dim1/2 + 1;
+		for (int x2 = -dim2/2; x2 < dim2/2; x2++) {
+			for (int x1 = 0; x1 <= dim1/2; x1++) {
+				int i = dim1p*((x2+dim2)%dim2) + x1;
+				double k1 = 2*PI*x1/L1;
+				double k2 = 2*PI*x2/L2;
+				fn.apply(k1, k2, scratch[2*i+0]*dx1*dx2, scratch[2*i+1]*dx1*dx2);
+			}
+		}
+	}
+	
+	// multiplies the half spectrum of src by fn, or by the full wraparound array
+	// fnArray if fn is null
+	private void convolveHalf(double[] src, double[] dst, Function2D fn, double[] fnArray) {
+		double L1 = dim1*dx1;
+		double L2 = dim2*dx2;
+		double scale = 1.0/(dim1*dim2);
+		
+		rfft.transform(src, scratch);
+		
+		int dim1p = dim1/2 + 1;
+		for (int x2 = -dim2/2; x2 < dim2/2; x2++) {
+			for (int x1 = 0; x1 <= dim1/2; x1++) {
+				int i = dim1p*((x2+dim2)%dim2) + x1;
+				double J;
+				if (fn == null) {
+					J = scale*fnArray[dim1*((x2+dim2)%dim2) + x1];
+				}
+				else {
+					double k1 = 2*PI*x1/L1;
+					double k2 = 2*PI*x2/L2;
+					J = scale*fn.eval(k1, k2);
+				}
+				scratch[2*i+0] *= J;
+				scratch[2*i+1] *= J;
+			}
+		}
+		
+		rfft.backtransform(scratch, dst);
+	}
+	
+	// returns the kernel of plan times the normalization 1/(dim1*dim2), in the order of
+	// the spectrum, evaluating it if the plan is new or the lengths have changed
+	private double[] multipliers(ConvolutionPlan plan) {
+		if (plan.fft != this)
+			throw new IllegalArgumentException("Plan was created by another transform.");
+		if (plan.lengths == lengthsVersion)
+			return plan.multipliers;
+		
+		Function2D fn = (Function2D)plan.fn;
+		double L1 = dim1*dx1;
+		double L2 = dim2*dx2;
+		double scale = 1.0/(dim1*dim2);
+		int h1 = dim1/2+1, h2 = dim2/2+1;
+		double[] folded = null;
+		if (plan.symmetric) {
+			folded = new double[h1*h2];
+			for (int x2 = 0; x2 < h2; x2++)
+				for (int x1 = 0; x1 < h1; x1++)
+					folded[h1*x2 + x1] = scale*fn.eval(2*PI*x1/L1, 2*PI*x2/L2);
+		}
+		
+		int n1 = (rfft != null) ? h1 : dim1; // row length of the spectrum
+		double[] ret = new double[n1*dim2];
+		for (int i2 = 0; i2 < dim2; i2++) {
+			int x2 = ConvolutionPlan.wavenumber(i2, dim2);
+			for (int i1 = 0; i1 < n1; i1++) {
+				int x1 = (rfft != null) ? i1 : ConvolutionPlan.wavenumber(i1, dim1);
+				if (folded != null)
+					ret[n1*i2 + i1] = folded[h1*Math.abs(x2) + Math.abs(x1)];
+				else
+					ret[n1*i2 + i1] = scale*fn.eval(2*PI*x1/L1, 2*PI*x2/L2);
+			}
+		}
+		plan.multipliers = ret;
+		plan.lengths = lengthsVersion;
+		return ret;
+	}
 }
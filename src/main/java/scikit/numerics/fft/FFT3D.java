@@ -1,7 +1,12 @@
 package scikit.numerics.fft;
 
+import static java.lang.Math.PI;
+
+import java.io.File;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
 
+import scikit.numerics.fft.managed.PlanWisdom;
 import scikit.numerics.fn.Function3D;
 
 public abstract class FFT3D {
@@ -12,27 +17,189 @@ public abstract class FFT3D {
 	public int dim1, dim2, dim3;
 	protected double[] scratch;
 	protected double dx1, dx2, dx3;
+	protected int lengthsVersion = 0; // incremented by setLengths() to invalidate plans
 	
 	abstract public void transform(double[] src, MapFn fn);
 	abstract public void convolve(double[] src, double[] dst, Function3D fn);
 	
+	/**
+	 * Convolves src with the kernel of plan into dst. The kernel is evaluated only when
+	 * the plan is first used, or after setLengths(). It is permissible for src and dst
+	 * to reference the same array.
+	 */
+	abstract public void convolve(double[] src, double[] dst, ConvolutionPlan plan);
+	
+	public void convolve(double[][] src, double[][] dst, ConvolutionPlan plan) {
+		ConvolutionPlan[] plans = new ConvolutionPlan[src.length];
+		Arrays.fill(plans, plan);
+		convolve(src, dst, plans);
+	}
+	
+	/**
+	 * Convolves each field src[f] with the kernel of plans[f] into dst[f]. The kernels
+	 * must be even, fn(-k) = fn(k). Implementations may transform several fields
+	 * together.
+	 */
+	public void convolve(double[][] src, double[][] dst, ConvolutionPlan[] plans) {
+		for (int f = 0; f < src.length; f++)
+			convolve(src[f], dst[f], plans[f]);
+	}
+	
 	public static FFT3D create(int dim1, int dim2, int dim3) {
-		try {
-			Class<?> c = Class.forName("scikit.numerics.fft.FFT3DNative");
-			return (FFT3D)c.getConstructor(int.class, int.class, int.class).newInstance(dim1, dim2, dim3);
+		return create(dim1, dim2, dim3, 1);
+	}
+	
+	/**
+	 * Returns the fastest available transform for the given size and number of
+	 * threads. The native FFTW transform, if it can be loaded, and the managed
+	 * transform are timed on a convolution. The winner is remembered by PlanWisdom,
+	 * and FFTW's own wisdom is kept alongside in a file with the suffix .fftw.
+	 * Measuring is opt-in, with -Dscikit.fft.measure=true; by default the native
+	 * transform is used if it can be loaded, and the managed one otherwise. The
+	 * managed half spectrum mode, in which transform(src, fn) visits only part of
+	 * the spectrum, is never chosen here; construct FFT3DManaged with halfSpectrum
+	 * set to use it.
+	 */
+	public static FFT3D create(int dim1, int dim2, int dim3, int threads) {
+		String key = "fft3d."+dim1+"x"+dim2+"x"+dim3+".t"+threads;
+		String best = PlanWisdom.measuring() ? PlanWisdom.get(key) : "native";
+		if (best == null) {
+			// candidates are timed one at a time, so that only one is held in memory
+			double bestTime = Double.POSITIVE_INFINITY;
+			for (String kind : new String[] {"native", "managed"}) {
+				FFT3D fft = create(kind, dim1, dim2, dim3, threads);
+				if (fft == null)
+					continue;
+				double t = PlanWisdom.time(convolution(fft));
+				fft = null;
+				if (t < bestTime) {
+					bestTime = t;
+					best = kind;
+				}
+			}
+			PlanWisdom.put(key, best);
 		}
-		catch (InvocationTargetException e) {
-			System.out.println(e.getCause());
+		FFT3D ret = create(best, dim1, dim2, dim3, threads);
+		if (ret == null)
+			ret = create("managed", dim1, dim2, dim3, threads);
+		return ret;
+	}
+	
+	// returns the named implementation, or null if it is not available
+	private static FFT3D create(String kind, int dim1, int dim2, int dim3, int threads) {
+		FFT3D ret = null;
+		if (kind.equals("native")) {
+			try {
+				Class<?> c = Class.forName("scikit.numerics.fft.FFT3DNative");
+				if (PlanWisdom.measuring()) {
+					File wisdom = new File(PlanWisdom.file().getPath()+".fftw");
+					ret = (FFT3D)c.getConstructor(int.class, int.class, int.class, File.class).newInstance(dim1, dim2, dim3, wisdom);
+				}
+				else {
+					ret = (FFT3D)c.getConstructor(int.class, int.class, int.class).newInstance(dim1, dim2, dim3);
+				}
+			}
+			catch (InvocationTargetException e) {
+				System.out.println(e.getCause());
+			}
+			catch (Throwable e) {
+				System.out.println(e);
+			}
 		}
-		catch (Exception e) {
-			System.out.println(e);
+		else {
+			ret = new FFT3DManaged(dim1, dim2, dim3);
 		}
-		return new FFT3DManaged(dim1, dim2, dim3);
+		if (ret != null)
+			ret.setThreads(threads);
+		return ret;
+	}
+	
+	private static Runnable convolution(final FFT3D fft) {
+		final double[] data = new double[fft.dim1*fft.dim2*fft.dim3];
+		final ConvolutionPlan plan = fft.plan(new Function3D() {
+			public double eval(double k1, double k2, double k3) {
+				return 1;
+			}
+		}, true);
+		return new Runnable() {
+			public void run() {
+				fft.convolve(data, data, plan);
+			}
+		};
+	}
+	
+	/**
+	 * Distributes the transforms over the shared worker threads if threads is
+	 * more than 1, for implementations which support it. The default is serial.
+	 * The number of worker threads is set by Workers.setThreads(), not here.
+	 */
+	public void setThreads(int threads) {
 	}
 	
 	public void setLengths(double L1, double L2, double L3) {
 		dx1 = L1/dim1;
 		dx2 = L2/dim2;
 		dx3 = L3/dim3;
+		lengthsVersion++;
+	}
+	
+	/**
+	 * Returns a plan for repeated convolutions with the kernel fn(k1, k2, k3). If
+	 * symmetric is true, fn must be even in k1, k2 and k3 separately and is evaluated
+	 * only once for each (|k1|, |k2|, |k3|).
+	 */
+	public ConvolutionPlan plan(Function3D fn, boolean symmetric) {
+		return new ConvolutionPlan(this, fn, symmetric);
+	}
+	
+	public ConvolutionPlan plan(Function3D fn) {
+		return plan(fn, false);
+	}
+	
+	/**
+	 * Returns the kernel of plan times the normalization 1/(dim1*dim2*dim3), in the
+	 * order of the spectrum, evaluating it if the plan is new or the lengths have
+	 * changed. The spectrum holds k1 >= 0 only if halfSpectrum is true.
+	 */
+	protected double[] multipliers(ConvolutionPlan plan, boolean halfSpectrum) {
+		if (plan.fft != this)
+			throw new IllegalArgumentException("Plan was created by another transform.");
+		if (plan.lengths == lengthsVersion)
+			return plan.multipliers;
+		
+		Function3D fn = (Function3D)plan.fn;
+		double L1 = dim1*dx1;
+		double L2 = dim2*dx2;
+		double L3 = dim3*dx3;
+		double scale = 1.0/(dim1*dim2*dim3);
+		int h1 = dim1/2+1, h2 = dim2/2+1, h3 = dim3/2+1;
+		double[] folded = null;
+		if (plan.symmetric) {
+			folded = new double[h1*h2*h3];
+			for (int x3 = 0; x3 < h3; x3++)
+				for (int x2 = 0; x2 < h2; x2++)
+					for (int x1 = 0; x1 < h1; x1++)
+						folded[h1*h2*x3 + h1*x2 + x1] = scale*fn.eval(2*PI*x1/L1, 2*PI*x2/L2, 2*PI*x3/L3);
+		}
+		
+		int n1 = halfSpectrum ? h1 : dim1; // row length of the spectrum
+		double[] ret = new double[n1*dim2*dim3];
+		int i = 0;
+		for (int i3 = 0; i3 < dim3; i3++) {
+			int x3 = ConvolutionPlan.wavenumber(i3, dim3);
+			for (int i2 = 0; i2 < dim2; i2++) {
+				int x2 = ConvolutionPlan.wavenumber(i2, dim2);
+				for (int i1 = 0; i1 < n1; i1++, i++) {
+					int x1 = halfSpectrum ? i1 : ConvolutionPlan.wavenumber(i1, dim1);
+					if (folded != null)
+						ret[i] = folded[h1*h2*Math.abs(x3) + h1*Math.abs(x2) + Math.abs(x1)];
+					else
+						ret[i] = scale*fn.eval(2*PI*x1/L1, 2*PI*x2/L2, 2*PI*x3/L3);
+				}
+			}
+		}
+		plan.multipliers = ret;
+		plan.lengths = lengthsVersion;
+		return ret;
 	}
 }
@@ -0,0 +1,121 @@
+package scikit.numerics.fft;
+
+import static java.lang.Math.PI;
+import scikit.numerics.fft.managed.RealFloat3DFFT;
+import scikit.numerics.fn.Function3D;
+
+/**
+ * A 3D transform whose spectrum is stored in single precision, for grids so large that
+ * memory size and bandwidth dominate. The fields may be float or double arrays. As in
+ * FFT3DNative, only the half spectrum k1 >= 0 is stored and visited by
+ * transform(src, fn). Requires even dim1.
+ */
+public class FFT3DFloat extends FFT3D {
+	RealFloat3DFFT fft;
+	float[] spectrum;
+
+	public FFT3DFloat(int dim1, int dim2, int dim3) {
+		this.dim1 = dim1;
+		this.dim2 = dim2;
+		this.dim3 = dim3;
+		// x1 is the fastest varying index, i.e., the last dimension of fft
+		fft = new RealFloat3DFFT(dim3, dim2, dim1);
+		spectrum = new float[fft.spectrumLength()];
+		dx1 = dx2 = dx3 = 1;
+	}
+
+	public void setThreads(int threads) {
+		fft.setThreads(threads);
+	}
+
+	public void transform(float[] src, MapFn fn) {
+		fft.transform(src, spectrum);
+		visit(fn);
+	}
+
+	public void transform(double[] src, MapFn fn) {
+		fft.transform(src, spectrum);
+		visit(fn);
+	}
+
+	/**
+	 * Convolves source array src with function fn into destination dst
+	 * It is permissible for src and dst to reference the same array.
+	 */
+	public void convolve(float[] src, float[] dst, Function3D fn) {
+		fft.transform(src, spectrum);
+		multiply(fn);
+		fft.backtransform(spectrum, dst);
+	}
+
+	public void convolve(double[] src, double[] dst, Function3D fn) {
+		fft.transform(src, spectrum);
+		multiply(fn);
+		fft.backtransform(spectrum, dst);
+	}
+
+	/**
+	 * Convolves src with the kernel of plan into dst. Note that the multipliers of
+	 * the plan are stored in double precision, taking as much memory as the spectrum.
+	 */
+	public void convolve(float[] src, float[] dst, ConvolutionPlan plan) {
+		fft.transform(src, spectrum);
+		multiply(multipliers(plan, true));
+		fft.backtransform(spectrum, dst);
+	}
+
+	public void convolve(double[] src, double[] dst, ConvolutionPlan plan) {
+		fft.transform(src, spectrum);
+		multiply(multipliers(plan, true));
+		fft.backtransform(spectrum, dst);
+	}
+
+	private void visit(MapFn fn) {
+		double L1 = dim1*dx1;
+		double L2 = dim2*dx2;
+		double L3 = dim3*dx3;
+		double scale = dx1*dx2*dx3;
+
+		int dim1p = dim1/2 + 1;
+		for (int x3 = -dim3/2; x3 < dim3/2; x3++) {
+			for (int x2 = -dim2/2; x2 < dim2/2; x2++) {
+				for (int x1 = 0; x1 <= dim1/2; x1++) {
+					int i = dim1p*dim2*((x3+dim3)%dim3) + dim1p*((x2+dim2)%dim2) + x1;
+					double k1 = 2*PI*x1/L1;
+					double k2 = 2*PI*x2/L2;
+					double k3 = 2*PI*x3/L3;
+					fn.apply(k1, k2, k3, scale*spectrum[2*i+0], scale*spectrum[2*i+1]);
+				}
+			}
+		}
+	}
+
+	private void multiply(Function3D fn) {
+		double L1 = dim1*dx1;
+		double L2 = dim2*dx2;
+		double L3 = dim3*dx3;
+		double scale = 1.0/(dim1*dim2*dim3);
+
+		int dim1p = dim1/2 + 1;
+		for (int x3 = -dim3/2; x3 < dim3/2; x3++) {
+			for (int x2 = -dim2/2; x2 < dim2/2; x2++) {
+				for (int x1 = 0; x1 <= dim1/2; x1++) {
+					int i = dim1p*dim2*((x3+dim3)%dim3) + dim1p*((x2+dim2)%dim2) + x1;
+					double k1 = 2*PI*x1/L1;
+					double k2 = 2*PI*x2/L2;
+					double k3 = 2*PI*x3/L3;
+					float J = (float)(scale*fn.eval(k1, k2, k3));
+					spectrum[2*i+0] *= J;
+					spectrum[2*i+1] *= J;
+				}
+			}
+		}
+	}
+
+	private void multiply(double[] J) {
+		for (int i = 0; i < J.length; i++) {
+			spectrum[2*i+0] *= J[i];
+			spectrum[2*i+1] *= J[i];
+		}
+	}
+}
@@ -2,20 +2,52 @@ package scikit.numerics.fft;
 
 import static java.lang.Math.PI;
 import scikit.numerics.fft.managed.ComplexDouble3DFFT;
+import scikit.numerics.fft.managed.RealDouble3DFFT;
 import scikit.numerics.fn.Function3D;
 
 public class FFT3DManaged extends FFT3D {
 	ComplexDouble3DFFT fft;
+	RealDouble3DFFT rfft; // non-null in half spectrum mode
+	RealPairs pairs;
 	
 	public FFT3DManaged(int dim1, int dim2, int dim3) {
+		this(dim1, dim2, dim3, false);
+	}
+	
+	/**
+	 * In half spectrum mode, transform(src, fn) and convolve() use a real to complex
+	 * transform which stores only the coefficients with k1 >= 0, exactly like
+	 * FFT3DNative. This halves both the arithmetic and the scratch memory.
+	 * Requires even dim1, or throws IllegalArgumentException. The mode must be
+	 * requested here; FFT3D.create() only returns full spectrum managed
+	 * transforms.
+	 */
+	public FFT3DManaged(int dim1, int dim2, int dim3, boolean halfSpectrum) {
+		if (halfSpectrum && dim1 % 2 != 0)
+			throw new IllegalArgumentException("Half spectrum mode requires even dim1 : "+dim1);
 		this.dim1 = dim1;
 		this.dim2 = dim2;
 		this.dim3 = dim3;
-		fft = new ComplexDouble3DFFT(dim1, dim2, dim3);
-		scratch = new double[2*dim1*dim2*dim3];
+		// x1 is the fastest varying index, i.e., the last dimension of fft
+		fft = new ComplexDouble3DFFT(dim3, dim2, dim1);
+		pairs = new RealPairs(dim1, dim2, dim3);
+		if (halfSpectrum) {
+			// x1 is the fastest varying index, i.e., the last dimension of rfft
+			rfft = new RealDouble3DFFT(dim3, dim2, dim1);
+			scratch = new double[rfft.spectrumLength()];
+		}
+		else {
+			scratch = new double[2*dim1*dim2*dim3];
+		}
 		dx1 = dx2 = dx3 = 1;
 	}
 	
+	public void setThreads(int threads) {
+		fft.setThreads(threads);
+		if (rfft != null)
+			rfft.setThreads(threads);
+	}
+	
 	public void transform(double[] src, double[] dst) {
 		for (int i = dim1*dim2*dim3-1; i >= 0; i--) {
 			dst[2*i+0] = src[i]*dx1*dx2*dx3;
@@ -25,6 +57,19 @@ public class FFT3DManaged extends FFT3D {
 		fft.toWraparoundOrder(dst);
 	}
 	
+	/**
+	 * Transforms each real field src[f] into dst[f], as transform(src[f], dst[f])
+	 * would. Pairs of fields share a single complex transform.
+	 */
+	public void transform(double[][] src, double[][] dst) {
+		for (int f = 0; f < src.length; f += 2) {
+			boolean pair = f+1 < src.length;
+			pairs.pack(src[f], pair ? src[f+1] : null, dst[f]);
+			fft.transform(dst[f]);
+			pairs.separate(dst[f], dst[f], pair ? dst[f+1] : null, dx1*dx2*dx3);
+		}
+	}
+	
 	public void backtransform(double[] src, double[] dst) {
 		double L1 = dim1*dx1;
 		double L2 = dim2*dx2;
@@ -36,6 +81,10 @@ public class FFT3DManaged extends FFT3D {
 	}
 
 	public void transform(double[] src, MapFn fn) {
+		if (rfft != null) {
+			transformHalf(src, fn);
+			return;
+		}
 		transform(src, scratch);
 		
 		double L1 = dim1*dx1;
@@ -62,6 +111,10 @@ public class FFT3DManaged extends FFT3D {
 	 * @param fn
 	 */
 	public void convolve(double[] src, double[] dst, Function3D fn) {
+		if (rfft != null) {
+			convolveHalf(src, dst, fn);
+			return;
+		}
 		transform(src, scratch);
 		
 		double L1 = dim1*dx1;
@@ -84,7 +137,63 @@ public class FFT3DManaged extends FFT3D {
 		backtransform(scratch, dst);
 	}
 	
+	public void convolve(double[] src, double[] dst, ConvolutionPlan plan) {
+		double[] J = multipliers(plan, rfft != null);
+		if (rfft != null) {
+			rfft.transform(src, scratch);
+		}
+		else {
+			for (int i = dim1*dim2*dim3-1; i >= 0; i--) {
+				scratch[2*i+0] = src[i];
+				scratch[2*i+1] = 0;
+			}
+			fft.transform(scratch);
+		}
+		for (int i = 0; i < J.length; i++) {
+			scratch[2*i+0] *= J[i];
+			scratch[2*i+1] *= J[i];
+		}
+		if (rfft != null) {
+			rfft.backtransform(scratch, dst);
+		}
+		else {
+			fft.backtransform(scratch);
+			for (int i = 0; i < dim1*dim2*dim3; i++)
+				dst[i] = scratch[2*i+0];
+		}
+	}
+	
+	/**
+	 * Convolves each field src[f] with the kernel of plans[f] into dst[f]. The kernels
+	 * must be even, fn(-k) = fn(k). Pairs of fields share a single complex transform,
+	 * or, in half spectrum mode, each field takes a half size transform.
+	 */
+	public void convolve(double[][] src, double[][] dst, ConvolutionPlan[] plans) {
+		if (rfft != null) {
+			super.convolve(src, dst, plans);
+			return;
+		}
+		for (int f = 0; f < src.length; f += 2) {
+			boolean pair = f+1 < src.length;
+			double[] ja = multipliers(plans[f], false);
+			double[] jb = pair ? multipliers(plans[f+1], false) : ja;
+			pairs.pack(src[f], pair ? src[f+1] : null, scratch);
+			fft.transform(scratch);
+			pairs.multiply(scratch, ja, jb);
+			fft.backtransform(scratch);
+			for (int i = 0; i < dim1*dim2*dim3; i++) {
+				dst[f][i] = scratch[2*i+0];
+				if (pair)
+					dst[f+1][i] = scratch[2*i+1];
+			}
+		}
+	}
+	
 	public void convolve2(double[] src, double[] dst, Function3D fn) {
+		if (rfft != null) {
+			convolveHalf(src, dst, fn);
+			return;
+		}
 		transform(src, scratch);
 		
 		double L1 = dim1*dx1;
@@ -119,4 +228,52 @@ public class FFT3DManaged extends FFT3D {
 		
 		backtransform(scratch, dst);
 	}
+	
+	private void transformHalf(double[] src, MapFn fn) {
+		rfft.transform(src, scratch);
+		
+		double L1 = dim1*dx1;
+		double L2 = dim2*dx2;
+		double L3 = dim3*dx3;
+		double scale = dx1*dx2*dx3;
+		
+		int dim1p = dim1/2 + 1;
+		for (int x3 = -dim3/2; x3 < dim3/2; x3++) {
+			for (int x2 = -dim2/2; x2 < dim2/2; x2++) {
+				for (int x1 = 0; x1 <= dim1/2; x1++) {
+					int i = dim1p*dim2*((x3+dim3)%dim3) + dim1p*((x2+dim2)%dim2) + x1;
+					double k1 = 2*PI*x1/L1;
+					double k2 = 2*PI*x2/L2;
+					double k3 = 2*PI*x3/L3;
+					fn.apply(k1, k2, k3, scale*scratch[2*i+0], scale*scratch[2*i+1]);
+				}
+			}
+		}
+	}
+	
+	private void convolveHalf(double[] src, double[] dst, Function3D fn) {
+		double L1 = dim1*dx1;
+		double L2 = dim2*dx2;
+		double L3 = dim3*dx3;
+		double scale = 1.0/(dim1*dim2*dim3);
+		
+		rfft.transform(src, scratch);
+		
+		int dim1p = dim1/2 + 1;
+		for (int x3 = -dim3/2; x3 < dim3/2; x3++) {
+			for (int x2 = -dim2/2; x2 < dim2/2; x2++) {
+				for (int x1 = 0; x1 <= dim1/2; x1++) {
+					int i = dim1p*dim2*((x3+dim3)%dim3) + dim1p*((x2+dim2)%dim2) + x1;
+					double k1 = 2*PI*x1/L1;
+					double k2 = 2*PI*x2/L2;
+					double k3 = 2*PI*x3/L3;
+					double J = scale*fn.eval(k1, k2, k3);
+					scratch[2*i+0] *= J;
+					scratch[2*i+1] *= J;
+				}
+			}
+		}
+		
+		rfft.backtransform(scratch, dst);
+	}
 }
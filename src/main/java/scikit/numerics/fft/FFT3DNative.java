@@ -1,6 +1,11 @@
 package scikit.numerics.fft;
 
 import static java.lang.Math.PI;
+
+import java.io.File;
+import java.io.IOException;
+
+import jfftw.Wisdom;
 import jfftw.real.nd.Plan;
 import scikit.numerics.fn.Function3D;
 
@@ -12,6 +17,23 @@ public class FFT3DNative extends FFT3D {
 	Plan fftForward, fftBackward;
 	
 	public FFT3DNative(int dim1, int dim2, int dim3) {
+		this(dim1, dim2, dim3, flags);
+	}
+	
+	/**
+	 * Creates measured FFTW plans, using and extending the FFTW wisdom stored in
+	 * the given file, so that the measurement is made only once per machine.
+	 */
+	public FFT3DNative(int dim1, int dim2, int dim3, File wisdom) {
+		this(dim1, dim2, dim3, loadWisdom(wisdom));
+		try {
+			Wisdom.save(wisdom);
+		} catch (IOException e) {
+			System.out.println(e);
+		}
+	}
+	
+	private FFT3DNative(int dim1, int dim2, int dim3, int flags) {
 		this.dim1 = dim1;
 		this.dim2 = dim2;
 		this.dim3 = dim3;
@@ -21,6 +43,18 @@ public class FFT3DNative extends FFT3D {
 		dx1 = dx2 = dx3 = 1;
 	}
 	
+	// loads the wisdom file, if present, and returns the flags of a measured plan
+	private static int loadWisdom(File wisdom) {
+		if (wisdom.exists()) {
+			try {
+				Wisdom.load(wisdom);
+			} catch (IOException e) {
+				System.out.println(e);
+			}
+		}
+		return Plan.MEASURE | Plan.USE_WISDOM;
+	}
+	
 
 	public void transform(double[] src, MapFn fn) {
 		fftForward.transform(1, src, 1, 0, scratch, 1, 0);
@@ -69,4 +103,14 @@ public class FFT3DNative extends FFT3D {
 		
 		fftBackward.transform(1, scratch, 1, 0, dst, 1, 0);		
 	}
+	
+	public void convolve(double[] src, double[] dst, ConvolutionPlan plan) {
+		double[] J = multipliers(plan, true);
+		fftForward.transform(1, src, 1, 0, scratch, 1, 0);
+		for (int i = 0; i < J.length; i++) {
+			scratch[2*i+0] *= J[i];
+			scratch[2*i+1] *= J[i];
+		}
+		fftBackward.transform(1, scratch, 1, 0, dst, 1, 0);
+	}
 }
@@ -0,0 +1,197 @@
+package scikit.numerics.fft;
+
+import static java.lang.Math.PI;
+
+import java.io.IOException;
+
+import scikit.numerics.fft.managed.ComplexDoubleFFT;
+import scikit.numerics.fft.managed.RealDouble2DFFT;
+import scikit.numerics.fn.Function3D;
+
+/**
+ * A 3D transform of a field which is split over several processes, possibly on
+ * different hosts, so that fields larger than the memory of one machine can be
+ * transformed. Each process holds a slab of dim3/P consecutive x3 planes, where P
+ * is the number of processes connected by the SocketExchange, and passes only its
+ * own slab, starting at plane firstPlane(), to transform() and convolve(). Each
+ * process must make the same sequence of calls.
+ * <p>
+ * The planes are transformed locally, then the half spectrum is transposed between
+ * the processes so that each holds all of x3 for dim2/P rows of k2, and is finally
+ * transformed along x3. transform(src, fn) visits the modes held by this process
+ * only, with k1 >= 0 as in FFT3DNative. Requires even dim1, and dim2 and dim3
+ * divisible by P.
+ */
+public class FFT3DSlab extends FFT3D {
+	SocketExchange exchange;
+	int procs, rank;
+	int n2, n3;  // rows of k2 in the local spectrum, planes in the local slab
+	int h1;      // complex coefficients per row of the half spectrum
+	RealDouble2DFFT planeFFT;
+	ComplexDoubleFFT dim3FFT;
+	double[] plane, send, recv;
+
+	public FFT3DSlab(int dim1, int dim2, int dim3, SocketExchange exchange) {
+		procs = exchange.size();
+		if (dim1 % 2 != 0 || dim2 % procs != 0 || dim3 % procs != 0)
+			throw new IllegalArgumentException("Dimensions "+dim1+"x"+dim2+"x"+dim3+
+					" cannot be split over "+procs+" processes.");
+		this.dim1 = dim1;
+		this.dim2 = dim2;
+		this.dim3 = dim3;
+		this.exchange = exchange;
+		rank = exchange.rank();
+		n2 = dim2 / procs;
+		n3 = dim3 / procs;
+		h1 = dim1/2 + 1;
+		// x1 is the fastest varying index, i.e., the columns of planeFFT
+		planeFFT = new RealDouble2DFFT(dim2, dim1);
+		dim3FFT = ComplexDoubleFFT.forLength(dim3);
+		plane = new double[planeFFT.spectrumLength()];
+		send = new double[2*h1*dim2*n3];
+		recv = new double[send.length];
+		// local spectrum, indexed [k2-rank*n2][x3][k1]
+		scratch = new double[2*h1*n2*dim3];
+		dx1 = dx2 = dx3 = 1;
+	}
+
+	public void setThreads(int threads) {
+		planeFFT.setThreads(threads);
+	}
+
+	/** Returns the index of the first x3 plane of the local slab. */
+	public int firstPlane() {
+		return rank*n3;
+	}
+
+	/** Returns the number of doubles in the local slab, dim1*dim2*dim3/P. */
+	public int slabLength() {
+		return dim1*dim2*n3;
+	}
+
+	public void transform(double[] src, MapFn fn) {
+		forward(src);
+		double L1 = dim1*dx1;
+		double L2 = dim2*dx2;
+		double L3 = dim3*dx3;
+		double scale = dx1*dx2*dx3;
+		int i = 0;
+		for (int j2 = 0; j2 < n2; j2++) {
+			double k2 = 2*PI*ConvolutionPlan.wavenumber(rank*n2+j2, dim2)/L2;
+			for (int i3 = 0; i3 < dim3; i3++) {
+				double k3 = 2*PI*ConvolutionPlan.wavenumber(i3, dim3)/L3;
+				for (int x1 = 0; x1 < h1; x1++, i++) {
+					double k1 = 2*PI*x1/L1;
+					fn.apply(k1, k2, k3, scale*scratch[2*i+0], scale*scratch[2*i+1]);
+				}
+			}
+		}
+	}
+
+	public void convolve(double[] src, double[] dst, Function3D fn) {
+		forward(src);
+		double L1 = dim1*dx1;
+		double L2 = dim2*dx2;
+		double L3 = dim3*dx3;
+		double scale = 1.0/(dim1*dim2*dim3);
+		int i = 0;
+		for (int j2 = 0; j2 < n2; j2++) {
+			double k2 = 2*PI*ConvolutionPlan.wavenumber(rank*n2+j2, dim2)/L2;
+			for (int i3 = 0; i3 < dim3; i3++) {
+				double k3 = 2*PI*ConvolutionPlan.wavenumber(i3, dim3)/L3;
+				for (int x1 = 0; x1 < h1; x1++, i++) {
+					double J = scale*fn.eval(2*PI*x1/L1, k2, k3);
+					scratch[2*i+0] *= J;
+					scratch[2*i+1] *= J;
+				}
+			}
+		}
+		backward(dst);
+	}
+
+	public void convolve(double[] src, double[] dst, ConvolutionPlan plan) {
+		forward(src);
+		double[] J = multipliers(plan);
+		for (int i = 0; i < J.length; i++) {
+			scratch[2*i+0] *= J[i];
+			scratch[2*i+1] *= J[i];
+		}
+		backward(dst);
+	}
+
+	// the kernel of plan at the local modes, in the order of the local spectrum
+	private double[] multipliers(ConvolutionPlan plan) {
+		if (plan.fft != this)
+			throw new IllegalArgumentException("Plan was created by another transform.");
+		if (plan.lengths == lengthsVersion)
+			return plan.multipliers;
+		Function3D fn = (Function3D)plan.fn;
+		double L1 = dim1*dx1;
+		double L2 = dim2*dx2;
+		double L3 = dim3*dx3;
+		double scale = 1.0/(dim1*dim2*dim3);
+		double[] ret = new double[scratch.length/2];
+		int i = 0;
+		for (int j2 = 0; j2 < n2; j2++) {
+			double k2 = 2*PI*ConvolutionPlan.wavenumber(rank*n2+j2, dim2)/L2;
+			for (int i3 = 0; i3 < dim3; i3++) {
+				double k3 = 2*PI*ConvolutionPlan.wavenumber(i3, dim3)/L3;
+				for (int x1 = 0; x1 < h1; x1++, i++)
+					ret[i] = scale*fn.eval(2*PI*x1/L1, k2, k3);
+			}
+		}
+		plan.multipliers = ret;
+		plan.lengths = lengthsVersion;
+		return ret;
+	}
+
+	// transforms the local slab src into the local spectrum in scratch
+	private void forward(double[] src) {
+		int row = 2*h1;
+		for (int j3 = 0; j3 < n3; j3++) {
+			System.arraycopy(src, j3*dim1*dim2, plane, 0, dim1*dim2);
+			planeFFT.transform(plane, plane);
+			// rows k2 of process q go to the q'th block of send, indexed [j3][k2-q*n2]
+			for (int q = 0; q < procs; q++)
+				System.arraycopy(plane, q*n2*row, send, q*n3*n2*row + j3*n2*row, n2*row);
+		}
+		exchange(n3*n2*row);
+		for (int q = 0; q < procs; q++)
+			for (int j3 = 0; j3 < n3; j3++)
+				for (int j2 = 0; j2 < n2; j2++)
+					System.arraycopy(recv, q*n3*n2*row + (j3*n2+j2)*row,
+							scratch, (j2*dim3 + q*n3+j3)*row, row);
+		for (int j2 = 0; j2 < n2; j2++)
+			for (int x1 = 0; x1 < h1; x1++)
+				dim3FFT.transform(scratch, j2*dim3*row + 2*x1, row);
+	}
+
+	// backtransforms the local spectrum in scratch into the local slab dst
+	private void backward(double[] dst) {
+		int row = 2*h1;
+		for (int j2 = 0; j2 < n2; j2++)
+			for (int x1 = 0; x1 < h1; x1++)
+				dim3FFT.backtransform(scratch, j2*dim3*row + 2*x1, row);
+		for (int q = 0; q < procs; q++)
+			for (int j3 = 0; j3 < n3; j3++)
+				for (int j2 = 0; j2 < n2; j2++)
+					System.arraycopy(scratch, (j2*dim3 + q*n3+j3)*row,
+							send, q*n3*n2*row + (j3*n2+j2)*row, row);
+		exchange(n3*n2*row);
+		for (int j3 = 0; j3 < n3; j3++) {
+			for (int q = 0; q < procs; q++)
+				System.arraycopy(recv, q*n3*n2*row + j3*n2*row, plane, q*n2*row, n2*row);
+			planeFFT.backtransform(plane, plane);
+			System.arraycopy(plane, 0, dst, j3*dim1*dim2, dim1*dim2);
+		}
+	}
+
+	private void exchange(int length) {
+		try {
+			exchange.exchange(send, recv, length);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Transpose between processes failed.", e);
+		}
+	}
+}
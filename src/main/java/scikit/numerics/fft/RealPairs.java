@@ -0,0 +1,78 @@
+package scikit.numerics.fft;
+
+// Transforms two real fields a and b at the cost of one complex transform, by packing
+// them as z = a + i b. Since the transforms of real fields are hermitian, they are
+// recovered from Z as A(k) = (Z(k) + conj Z(-k))/2 and B(k) = (Z(k) - conj Z(-k))/2i.
+//
+// The complex array z is indexed n1*n2*i3 + n1*i2 + i1, with n3 = 1 in two dimensions,
+// so the complex transform must treat i1 as its fastest varying index.
+class RealPairs {
+	int n1, n2, n3;
+
+	RealPairs(int n1, int n2, int n3) {
+		this.n1 = n1;
+		this.n2 = n2;
+		this.n3 = n3;
+	}
+
+	// packs a + i b into z, either of which may be null for a field of zeros
+	void pack(double[] a, double[] b, double[] z) {
+		for (int i = n1*n2*n3-1; i >= 0; i--) {
+			z[2*i+0] = (a == null) ? 0 : a[i];
+			z[2*i+1] = (b == null) ? 0 : b[i];
+		}
+	}
+
+	// writes the spectra A and B contained in the transform Z, times scale, into a and
+	// b, which have the length of z. z may be the same array as a or b, and b may be
+	// null if only A is wanted.
+	void separate(double[] z, double[] a, double[] b, double scale) {
+		scale /= 2;
+		for (int i = 0; i < n1*n2*n3; i++) {
+			int m = mirror(i);
+			if (m < i)
+				continue;
+			double zr = z[2*i+0], zi = z[2*i+1];
+			double mr = z[2*m+0], mi = z[2*m+1];
+			a[2*i+0] = a[2*m+0] = scale*(zr + mr);
+			a[2*i+1] = scale*(zi - mi);
+			a[2*m+1] = scale*(mi - zi);
+			if (b != null) {
+				b[2*i+0] = b[2*m+0] = scale*(zi + mi);
+				b[2*i+1] = scale*(mr - zr);
+				b[2*m+1] = scale*(zr - mr);
+			}
+		}
+	}
+
+	// replaces Z by ja A + i jb B, so that the inverse transform of z holds the
+	// convolutions of a and b in its real and imaginary parts. the multipliers are
+	// indexed like z. only their even parts, (j(k) + j(-k))/2, are applied, which is
+	// what taking the real part of a single field convolution amounts to; kernels
+	// which are even in k but not on the Nyquist planes of the grid then give the
+	// same results as single field convolutions.
+	void multiply(double[] z, double[] ja, double[] jb) {
+		// Z'(k) = p Z(k) + q conj Z(-k), with p = (ja+jb)/2 and q = (ja-jb)/2
+		for (int i = 0; i < n1*n2*n3; i++) {
+			int m = mirror(i);
+			if (m < i)
+				continue;
+			double zr = z[2*i+0], zi = z[2*i+1];
+			double mr = z[2*m+0], mi = z[2*m+1];
+			double a = (ja[i]+ja[m])/2, b = (jb[i]+jb[m])/2;
+			double p = (a+b)/2, q = (a-b)/2;
+			z[2*i+0] = p*zr + q*mr;
+			z[2*i+1] = p*zi - q*mi;
+			if (m != i) {
+				z[2*m+0] = p*mr + q*zr;
+				z[2*m+1] = p*mi - q*zi;
+			}
+		}
+	}
+
+	// returns the index of wavevector -k, given the index of k
+	private int mirror(int i) {
+		int i1 = i % n1, i2 = (i / n1) % n2, i3 = i / (n1*n2);
+		return n1*n2*((n3-i3)%n3) + n1*((n2-i2)%n2) + (n1-i1)%n1;
+	}
+}
@@ -0,0 +1,228 @@
+package scikit.numerics.fft;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Connects a group of processes, each identified by its rank, with NIO socket
+ * channels, and exchanges blocks of doubles between all pairs of them. Every process
+ * creates a SocketExchange with its own rank and the same list of addresses, one per
+ * rank; the constructor returns once all processes are connected.
+ * <p>
+ * Blocks are streamed through one direct buffer of BUFFER bytes, shared out among
+ * the other processes, so the memory used does not grow with the block length.
+ */
+public class SocketExchange {
+	static final int CONNECT_TIMEOUT = 60000; // ms to wait for the other processes
+	static final int BUFFER = 1 << 20;        // bytes of the transfer buffer
+
+	int rank, size;
+	SocketChannel[] channels; // indexed by rank, null for this process
+	Selector selector;
+	ByteBuffer[] out, in;     // per process slices of the transfer buffer
+	int[] sent, received;     // doubles of the current blocks moved through out and in
+
+	/**
+	 * Listens at addresses[rank] and connects to the processes at the other
+	 * addresses.
+	 */
+	public SocketExchange(int rank, InetSocketAddress[] addresses) throws IOException {
+		this.rank = rank;
+		size = addresses.length;
+		channels = new SocketChannel[size];
+		out = new ByteBuffer[size];
+		in = new ByteBuffer[size];
+		sent = new int[size];
+		received = new int[size];
+
+		// lower ranks accept connections from higher ranks
+		ServerSocketChannel server = ServerSocketChannel.open();
+		try {
+			server.socket().setReuseAddress(true);
+			server.socket().bind(addresses[rank]);
+			ByteBuffer id = ByteBuffer.allocate(4);
+			for (int q = 0; q < rank; q++) {
+				SocketChannel c = connect(addresses[q]);
+				id.clear();
+				id.putInt(rank).flip();
+				while (id.hasRemaining())
+					c.write(id);
+				channels[q] = c;
+			}
+			for (int i = rank+1; i < size; i++) {
+				SocketChannel c = server.accept();
+				id.clear();
+				while (id.hasRemaining())
+					if (c.read(id) < 0)
+						throw new EOFException("Connection closed before identification.");
+				channels[id.getInt(0)] = c;
+			}
+		}
+		finally {
+			server.close();
+		}
+
+		selector = Selector.open();
+		for (int q = 0; q < size; q++) {
+			if (q != rank) {
+				channels[q].socket().setTcpNoDelay(true);
+				channels[q].configureBlocking(false);
+				channels[q].register(selector, 0, q);
+			}
+		}
+
+		if (size > 1) {
+			int slice = Math.max(8, BUFFER / (2*(size-1)) / 8 * 8);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(2*(size-1)*slice);
+			int k = 0;
+			for (int q = 0; q < size; q++) {
+				if (q != rank) {
+					out[q] = slice(buffer, k++, slice);
+					in[q] = slice(buffer, k++, slice);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns addresses on the local host for size processes, at consecutive ports
+	 * starting with port.
+	 */
+	public static InetSocketAddress[] localhost(int size, int port) {
+		InetSocketAddress[] ret = new InetSocketAddress[size];
+		for (int q = 0; q < size; q++)
+			ret[q] = new InetSocketAddress("localhost", port+q);
+		return ret;
+	}
+
+	public int rank() {
+		return rank;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Sends the q'th block of length doubles of send to process q, and receives the
+	 * block sent by each process q into the q'th block of recv. Every process must
+	 * call this with the same block length. The arrays must be distinct.
+	 */
+	public void exchange(double[] send, double[] recv, int length) throws IOException {
+		if ((long)size*length > send.length || (long)size*length > recv.length)
+			throw new IllegalArgumentException("Arrays too short for "+size+" blocks of "+length+" doubles.");
+		System.arraycopy(send, rank*length, recv, rank*length, length);
+		int pending = 0;
+		for (int q = 0; q < size; q++) {
+			if (q == rank || length == 0)
+				continue;
+			sent[q] = received[q] = 0;
+			fill(q, send, length);
+			in[q].clear();
+			channels[q].keyFor(selector).interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			pending += 2;
+		}
+
+		// write and read all channels concurrently, so that no pair of processes can
+		// block each other on full socket buffers
+		while (pending > 0) {
+			selector.select();
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				int q = (Integer)key.attachment();
+				if (key.isWritable() && out[q].hasRemaining()) {
+					channels[q].write(out[q]);
+					if (!out[q].hasRemaining()) {
+						if (sent[q] < length)
+							fill(q, send, length);
+						else {
+							key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+							pending--;
+						}
+					}
+				}
+				if (key.isReadable() && received[q] < length) {
+					// read no further than the end of this block, since the next
+					// block from q may already be on its way
+					long left = 8L*(length - received[q]) - in[q].position();
+					in[q].limit(in[q].position() + (int)Math.min(left, in[q].capacity() - in[q].position()));
+					if (channels[q].read(in[q]) < 0)
+						throw new EOFException("Process "+q+" closed its connection.");
+					drain(q, recv, length);
+					if (received[q] == length) {
+						key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+						pending--;
+					}
+				}
+			}
+		}
+	}
+
+	public void close() throws IOException {
+		selector.close();
+		for (SocketChannel c : channels)
+			if (c != null)
+				c.close();
+	}
+
+	// copies the next chunk of the q'th block of send into out[q]
+	private void fill(int q, double[] send, int length) {
+		int n = Math.min(length - sent[q], out[q].capacity() / 8);
+		out[q].clear();
+		out[q].asDoubleBuffer().put(send, q*length + sent[q], n);
+		out[q].limit(8*n);
+		sent[q] += n;
+	}
+
+	// moves the whole doubles read into in[q] to the q'th block of recv, keeping the
+	// bytes of a partly read double in in[q]
+	private void drain(int q, double[] recv, int length) {
+		in[q].flip();
+		int n = in[q].remaining() / 8;
+		in[q].asDoubleBuffer().get(recv, q*length + received[q], n);
+		in[q].position(8*n);
+		in[q].compact();
+		received[q] += n;
+	}
+
+	// returns the k'th slice of the given number of bytes of buffer. the values are
+	// sent little endian, as in ChunkedArray files, so that hosts of either byte
+	// order can exchange them
+	private static ByteBuffer slice(ByteBuffer buffer, int k, int bytes) {
+		buffer.clear();
+		buffer.limit((k+1)*bytes);
+		buffer.position(k*bytes);
+		return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	// connects to address, retrying until the process there is listening
+	private static SocketChannel connect(InetSocketAddress address) throws IOException {
+		long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT;
+		while (true) {
+			try {
+				return SocketChannel.open(address);
+			}
+			catch (ConnectException e) {
+				if (System.currentTimeMillis() > deadline)
+					throw e;
+				try {
+					Thread.sleep(50);
+				}
+				catch (InterruptedException ie) {
+					throw new IOException("Interrupted while connecting to "+address);
+				}
+			}
+		}
+	}
+}
@@ -1,4 +1,7 @@
 package scikit.numerics.fft.managed;
+
+import java.util.concurrent.ForkJoinPool;
+
 /** Computes the FFT of 2 dimensional complex, double precision data.
   * The data is stored in a 1-dimensional array in Row-Major order.
   * The physical layout in the array data, of the mathematical data d[i,j] is as follows:
@@ -18,6 +21,14 @@ public class ComplexDouble2DFFT {
   int nrows;
   int ncols;
   ComplexDoubleFFT rowFFT, colFFT;
+  ForkJoinPool pool;		// from setPool(), or null
+  int threads = 1;		// from setThreads()
+
+  /* number of adjacent columns transformed together in a contiguous tile */
+  static final int BLOCK = 16;
+  private ThreadLocal<double[]> tile = new ThreadLocal<double[]>() {
+    protected double[] initialValue() {
+      return new double[2*BLOCK*nrows]; }};
 
   /** Create an FFT for transforming nrows*ncols points of Complex, double precision
     * data. */
@@ -26,10 +37,29 @@ public class ComplexDouble2DFFT {
       throw new IllegalArgumentException("The array dimensions >=0 : "+nrows+","+ncols);
     this.nrows = nrows;
     this.ncols = ncols;
-    rowFFT = new ComplexDoubleFFT_Mixed(ncols);
-    colFFT = (nrows == ncols ? rowFFT : new ComplexDoubleFFT_Mixed(nrows));
+    rowFFT = ComplexDoubleFFT.forLength(ncols);
+    colFFT = (nrows == ncols ? rowFFT : ComplexDoubleFFT.forLength(nrows));
   }
 
+  /** Sets whether the independent row and column transforms are distributed
+    * over threads. The default, 1, transforms serially. More threads use the
+    * shared pool of {@link scikit.numerics.Workers Workers}, which is not
+    * resized here; its size is set by Workers.setThreads() or
+    * Matrix.setThreads(). */
+  public void setThreads(int threads) {
+    this.threads = threads;
+    pool = null; }
+
+  /** Shares an existing pool of worker threads, or transforms serially if pool
+    * is null. */
+  public void setPool(ForkJoinPool pool) {
+    this.pool = pool;
+    threads = 1; }
+
+  /* the pool of the current transform, or null for serial transforms */
+  ForkJoinPool pool() {
+    return ParallelLines.pool(pool, threads); }
+
   protected void checkData(double data[], int rowspan){
     if (rowspan < 2*ncols)
       throw new IllegalArgumentException("The row span "+rowspan+
@@ -49,10 +79,8 @@ public class ComplexDouble2DFFT {
     * alternating real and imaginary parts. */
   public void transform(double data[], int rowspan) {
     checkData(data,rowspan);
-    for(int i=0; i<nrows; i++){
-      rowFFT.transform(data,i*rowspan,2); }
-    for(int j=0; j<ncols; j++){
-      colFFT.transform(data,2*j,rowspan); }}
+    rows(data,rowspan,-1);
+    cols(data,rowspan,-1); }
 
   /** Return data in wraparound order.
     * @see <a href="package-summary.html#wraparound">wraparound format</A> */
@@ -65,12 +93,18 @@ public class ComplexDouble2DFFT {
     * @see <a href="package-summary.html#wraparound">wraparound format</A> */
   public double[] toWraparoundOrder(double data[], int rowspan){
     if (rowspan == 2*ncols) return data;
-    double newdata[] = new double[2*nrows*ncols];
+    return toWraparoundOrder(data,rowspan,new double[2*nrows*ncols]); }
+
+  /** Copy data in wraparound order into dst, which must be dimensioned (at least)
+    * 2*nrows*ncols, and return dst. rowspan is used to traverse data; dst is
+    * filled in packed (rowspan = 2*ncols) format. dst may be data itself, in which
+    * case the rows are packed in place.
+    * @see <a href="package-summary.html#wraparound">wraparound format</A> */
+  public double[] toWraparoundOrder(double data[], int rowspan, double dst[]){
+    if (rowspan == 2*ncols && dst == data) return dst;
     for(int i=0; i<nrows; i++)
-      for(int j=0; j<ncols; j++) {
-	newdata[i*2*ncols + 2*j]=data[i*rowspan +2*j];
-	newdata[i*2*ncols + 2*j+1]=data[i*rowspan +2*j+1]; }
-    return newdata; }
+      System.arraycopy(data,i*rowspan,dst,i*2*ncols,2*ncols);
+    return dst; }
 
   /** Compute the (unnormalized) inverse FFT of data, leaving it in place.*/
   public void backtransform(double data[]) {
@@ -79,10 +113,40 @@ public class ComplexDouble2DFFT {
   /** Compute the (unnormalized) inverse FFT of data, leaving it in place.*/
   public void backtransform(double data[], int rowspan) {
     checkData(data,rowspan);
-    for(int j=0; j<ncols; j++){
-      colFFT.backtransform(data,2*j,rowspan); }
-    for(int i=0; i<nrows; i++){
-      rowFFT.backtransform(data,i*rowspan,2); }}
+    cols(data,rowspan,+1);
+    rows(data,rowspan,+1); }
+
+  /* transforms (sign = -1) or backtransforms (sign = +1) every row; serial
+     transforms call rows(..., lo, hi) directly so that they allocate nothing */
+  private void rows(final double data[], final int rowspan, final int sign) {
+    ForkJoinPool pool = pool();
+    if (pool == null) {
+      rows(data,rowspan,sign,0,nrows);
+      return; }
+    new ParallelLines() {
+      void run(int lo, int hi) {
+	rows(data,rowspan,sign,lo,hi); }
+    }.invoke(pool, nrows); }
+
+  private void rows(double data[], int rowspan, int sign, int lo, int hi) {
+    for(int i=lo; i<hi; i++){
+      if (sign < 0) rowFFT.transform(data,i*rowspan,2);
+      else rowFFT.backtransform(data,i*rowspan,2); }}
+
+  /* transforms (sign = -1) or backtransforms (sign = +1) every column */
+  void cols(final double data[], final int rowspan, final int sign) {
+    ForkJoinPool pool = pool();
+    if (pool == null) {
+      cols(data,rowspan,sign,0,ncols);
+      return; }
+    new ParallelLines() {
+      void run(int lo, int hi) {
+	cols(data,rowspan,sign,lo,hi); }
+    }.invoke(pool, ncols); }
+
+  private void cols(double data[], int rowspan, int sign, int lo, int hi) {
+    for(int j=lo; j<hi; j+=BLOCK)
+      colFFT.transformLines(data,2*j,rowspan,Math.min(BLOCK,hi-j),tile.get(),sign); }
 
   /** Return the normalization factor.  
    * Multiply the elements of the backtransform'ed data to get the normalized inverse.*/
@@ -1,4 +1,7 @@
 package scikit.numerics.fft.managed;
+
+import java.util.concurrent.ForkJoinPool;
+
 /** Computes the FFT of 3 dimensional complex, double precision data.
  * The data is stored in a 1-dimensional array in generalized "Row-Major" order.
  * The physical layout in the array data, of the mathematical data d[i,j,k] is as follows:
@@ -15,6 +18,16 @@ package scikit.numerics.fft.managed;
 public class ComplexDouble3DFFT {
 	int dim1, dim2, dim3;
 	ComplexDoubleFFT dim1FFT, dim2FFT, dim3FFT;
+	ForkJoinPool pool; // from setPool(), or null
+	int threads = 1; // from setThreads()
+	
+	// number of adjacent strided lines transformed together in a contiguous tile
+	static final int BLOCK = 16;
+	private ThreadLocal<double[]> tile = new ThreadLocal<double[]>() {
+		protected double[] initialValue() {
+			return new double[2*BLOCK*Math.max(dim1, dim2)];
+		}
+	};
 
 	/** Create an FFT for transforming nrows*ncols points of Complex, double precision
 	 * data. */
@@ -22,9 +35,31 @@ public class ComplexDouble3DFFT {
 		this.dim1 = dim1;
 		this.dim2 = dim2;
 		this.dim3 = dim3;
-		dim1FFT = new ComplexDoubleFFT_Mixed(dim1);
-		dim2FFT = (dim1 == dim2 ? dim1FFT : new ComplexDoubleFFT_Mixed(dim2));
-		dim3FFT = (dim2 == dim3 ? dim2FFT : new ComplexDoubleFFT_Mixed(dim3));
+		dim1FFT = ComplexDoubleFFT.forLength(dim1);
+		dim2FFT = (dim1 == dim2 ? dim1FFT : ComplexDoubleFFT.forLength(dim2));
+		dim3FFT = (dim2 == dim3 ? dim2FFT : ComplexDoubleFFT.forLength(dim3));
+	}
+
+	/** Sets whether the independent 1D transforms of each pass are distributed
+	 * over threads. The default, 1, transforms serially. More threads use the
+	 * shared pool of {@link scikit.numerics.Workers Workers}, which is not
+	 * resized here; its size is set by Workers.setThreads() or
+	 * Matrix.setThreads(). */
+	public void setThreads(int threads) {
+		this.threads = threads;
+		pool = null;
+	}
+
+	/** Shares an existing pool of worker threads, or transforms serially if pool
+	 * is null. */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		threads = 1;
+	}
+
+	// the pool of the current transform, or null for serial transforms
+	ForkJoinPool pool() {
+		return ParallelLines.pool(pool, threads);
 	}
 
 	protected void checkData(double data[]){
@@ -38,15 +73,9 @@ public class ComplexDouble3DFFT {
 	 * alternating real and imaginary parts. */
 	public void transform(double data[]) {
 		checkData(data);
-		for (int i1 = 0; i1 < dim1; i1++)
-			for (int i2 = 0; i2 < dim2; i2++)
-				dim3FFT.transform(data, 2*(i1*dim3*dim2+i2*dim3), 2);
-		for (int i1 = 0; i1 < dim1; i1++)
-			for (int i3 = 0; i3 < dim3; i3++)
-				dim2FFT.transform(data, 2*(i1*dim3*dim2+i3), 2*dim3);
-		for (int i2 = 0; i2 < dim2; i2++)
-			for (int i3 = 0; i3 < dim3; i3++)
-				dim1FFT.transform(data, 2*(i2*dim3+i3), 2*dim3*dim2);
+		pass(data, 3, -1);
+		pass(data, 2, -1);
+		pass(data, 1, -1);
 	}
 
 	/** Return data in wraparound order.
@@ -58,15 +87,64 @@ public class ComplexDouble3DFFT {
 	/** Compute the (unnormalized) inverse FFT of data, leaving it in place.*/
 	public void backtransform(double data[]) {
 		checkData(data);
-		for (int i2 = 0; i2 < dim2; i2++)
-			for (int i3 = 0; i3 < dim3; i3++)
-				dim1FFT.backtransform(data, 2*(i2*dim3+i3), 2*dim3*dim2);
-		for (int i1 = 0; i1 < dim1; i1++)
-			for (int i3 = 0; i3 < dim3; i3++)
-				dim2FFT.backtransform(data, 2*(i1*dim3*dim2+i3), 2*dim3);
-		for (int i1 = 0; i1 < dim1; i1++)
-			for (int i2 = 0; i2 < dim2; i2++)
-				dim3FFT.backtransform(data, 2*(i1*dim3*dim2+i2*dim3), 2);
+		pass(data, 1, +1);
+		pass(data, 2, +1);
+		pass(data, 3, +1);
+	}
+
+	// transforms (sign = -1) or backtransforms (sign = +1) every line along
+	// dimension dim
+	void pass(final double data[], final int dim, final int sign) {
+		int count = dim1*dim2*dim3 / (dim == 1 ? dim1 : (dim == 2 ? dim2 : dim3));
+		new ParallelLines() {
+			void run(int lo, int hi) {
+				if (dim == 3) {
+					for (int l = lo; l < hi; l++)
+						lines(data, dim, l, 1, sign);
+					return;
+				}
+				// lines l and l+1 are adjacent in memory unless l+1 starts a new
+				// plane of the second pass
+				for (int l = lo; l < hi; ) {
+					int count = Math.min(BLOCK, hi - l);
+					if (dim == 2)
+						count = Math.min(count, dim3 - l%dim3);
+					lines(data, dim, l, count, sign);
+					l += count;
+				}
+			}
+		}.invoke(pool(), count);
+	}
+
+	// transforms lines l through l+count-1 along dimension dim
+	private void lines(double data[], int dim, int l, int count, int sign) {
+		ComplexDoubleFFT fft;
+		int i0, stride;
+		switch (dim) {
+		case 1:
+			// l = i2*dim3+i3
+			fft = dim1FFT;
+			i0 = 2*l;
+			stride = 2*dim3*dim2;
+			break;
+		case 2:
+			// l = i1*dim3+i3
+			fft = dim2FFT;
+			i0 = 2*((l/dim3)*dim3*dim2 + l%dim3);
+			stride = 2*dim3;
+			break;
+		default:
+			// l = i1*dim2+i2
+			fft = dim3FFT;
+			i0 = 2*l*dim3;
+			stride = 2;
+		}
+		if (count > 1)
+			fft.transformLines(data, i0, stride, count, tile.get(), sign);
+		else if (sign < 0)
+			fft.transform(data, i0, stride);
+		else
+			fft.backtransform(data, i0, stride);
 	}
 
 	/** Return the normalization factor.  
@@ -31,8 +31,37 @@ public abstract class ComplexDoubleFFT {
     this.n = n; }
 
   /** Creates an instance of a subclass of ComplexDoubleFFT appropriate for data
-    * of n elements.*/
+    * of n elements.
+    * @see #forLength(int) */
   public ComplexDoubleFFT getInstance(int n){
+    return forLength(n); }
+
+  /** Creates an instance of a subclass of ComplexDoubleFFT appropriate for data
+    * of n elements. This is the Mixed method unless measurements are enabled by
+    * PlanWisdom and n is a power of 2, in which case the Radix2, Radix8 and Mixed
+    * methods are timed and the fastest one is returned; the choice is remembered
+    * by PlanWisdom.*/
+  public static ComplexDoubleFFT forLength(int n){
+    if (Factorize.log2(n) < 0 || !PlanWisdom.measuring())
+      return new ComplexDoubleFFT_Mixed(n);
+    String key = "complex1d."+n;
+    String best = PlanWisdom.get(key);
+    if (best == null) {
+      final double data[] = new double[2*n];
+      double bestTime = Double.POSITIVE_INFINITY;
+      for (String method : new String[] {"radix2", "radix8", "mixed"}) {
+	final ComplexDoubleFFT fft = create(method, n);
+	double t = PlanWisdom.time(new Runnable() {
+	  public void run() { fft.transform(data); }});
+	if (t < bestTime) {
+	  bestTime = t;
+	  best = method; }}
+      PlanWisdom.put(key, best); }
+    return create(best, n); }
+
+  private static ComplexDoubleFFT create(String method, int n){
+    if (method.equals("radix2")) return new ComplexDoubleFFT_Radix2(n);
+    if (method.equals("radix8")) return new ComplexDoubleFFT_Radix8(n);
     return new ComplexDoubleFFT_Mixed(n); }
 
   protected void checkData(double data[], int i0, int stride){
@@ -71,11 +100,43 @@ public abstract class ComplexDoubleFFT {
     * @see <a href="package-summary.html#wraparound">wraparound format</A> */
   public double[] toWraparoundOrder(double data[], int i0, int stride) {
     if ((i0==0)&&(stride==2)) return data;
-    double newdata[] = new double[2*n];
+    return toWraparoundOrder(data,i0,stride,new double[2*n]); }
+
+  /** Copy data in wraparound order into dst, which must be dimensioned (at least)
+    * 2*n, and return dst. i0 and stride are used to traverse data; dst is filled
+    * in packed (i0=0, stride=2) format. dst may be data itself, for any i0 and
+    * stride, in which case the values are packed in place: dst[2*i] never lies
+    * after data[i0+stride*i], so no value is overwritten before it is read. The
+    * values of data beyond the first 2*n are then left unchanged.
+    * @see <a href="package-summary.html#wraparound">wraparound format</A> */
+  public double[] toWraparoundOrder(double data[], int i0, int stride, double dst[]) {
+    if ((i0==0)&&(stride==2)) {
+      if (dst != data) System.arraycopy(data,0,dst,0,2*n);
+      return dst; }
     for(int i=0; i<n; i++){
-      newdata[2*i]   = data[i0+stride*i];
-      newdata[2*i+1] = data[i0+stride*i+1]; }
-    return newdata; }
+      dst[2*i]   = data[i0+stride*i];
+      dst[2*i+1] = data[i0+stride*i+1]; }
+    return dst; }
+
+  /** Transforms (sign = -1) or backtransforms (sign = +1) count lines which are
+    * interleaved in data, line j having the layout
+    *<PRE>
+    *    Re(d[i]) = data[i0 + 2*j + stride*i]
+    *    Im(d[i]) = data[i0 + 2*j + stride*i+1]
+    *</PRE>
+    * The lines are copied into the small array tile, which must hold at least
+    * 2*n*count values, transformed there, and copied back. For large strides this
+    * reads whole cache lines, rather than one value per cache line, and the
+    * transforms themselves run in cache. */
+  void transformLines(double data[], int i0, int stride, int count, double tile[], int sign) {
+    for (int i = 0; i < n; i++)
+      System.arraycopy(data, i0+stride*i, tile, 2*count*i, 2*count);
+    for (int j = 0; j < count; j++) {
+      if (sign < 0) transform(tile, 2*j, 2*count);
+      else backtransform(tile, 2*j, 2*count); }
+    for (int i = 0; i < n; i++)
+      System.arraycopy(tile, 2*count*i, data, i0+stride*i, 2*count);
+  }
 
   /** Compute the (unnomalized) inverse FFT of data, leaving it in place.*/
   public void backtransform (double data[]){
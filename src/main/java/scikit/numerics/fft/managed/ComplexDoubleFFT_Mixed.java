@@ -76,13 +76,20 @@ public class ComplexDoubleFFT_Mixed extends ComplexDoubleFFT{
     }
   }
 
+  /* Scratch space for transform_internal, allocated once per plan and thread,
+     so that repeated transforms do not allocate and a plan may still be shared
+     between threads. */
+  private ThreadLocal<double[]> scratch = new ThreadLocal<double[]>() {
+    protected double[] initialValue() {
+      return new double[2*n]; }};
+
   /*______________________________________________________________________
     The main transformation driver */
   void transform_internal(double data[], int i0, int stride, int sign){
 
     if (n == 1) return;		/* FFT of 1 data point is the identity */
 
-    double scratch[] = new double[2*n];
+    double scratch[] = this.scratch.get();
     int product = 1;
     int state = 0;
     double in[], out[];
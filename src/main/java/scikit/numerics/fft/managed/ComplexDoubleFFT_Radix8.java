@@ -0,0 +1,198 @@
+package scikit.numerics.fft.managed;
+
+/** Computes FFT's of complex, double precision data where n is an integer power of 2.
+  * This class uses radix-8 butterflies, finishing with a radix-4 or radix-2 pass
+  * when n is not a power of 8, in the self-sorting Stockham arrangement: each pass
+  * reads one array and writes another with unit stride, so no bit reversal is
+  * needed. The twiddle factors of all passes are precomputed into a single flat
+  * array, in the order in which they are read.
+  * <P>
+  * The intermediate passes use per-thread work arrays of 4*n values, so that a plan
+  * may be shared between threads.
+  * <P>
+  * See {@link ComplexDoubleFFT ComplexDoubleFFT} for details of data layout.
+  */
+public class ComplexDoubleFFT_Radix8 extends ComplexDoubleFFT {
+  private int last;		// radix of the final pass: 8, 4 or 2
+  private double twiddle[];	// w, w^2, ..., w^7 for each butterfly of each radix-8 pass
+
+  /* two work arrays, at offsets 0 and 2*n */
+  private ThreadLocal<double[]> work = new ThreadLocal<double[]>() {
+    protected double[] initialValue() {
+      return new double[4*n]; }};
+
+  public ComplexDoubleFFT_Radix8(int n){
+    super(n);
+    int log = Factorize.log2(n);
+    if (log < 0)
+      throw new IllegalArgumentException(n+" is not a power of 2");
+    last = (log%3 == 0) ? 8 : 1 << (log%3);
+    int size = 0;
+    for(int m=n; m>=8; m/=8)
+      size += 14*(m/8);
+    twiddle = new double[size+6];
+    int t = 0;
+    for(int m=n; m>=8; m/=8){
+      for(int p=0; p<m/8; p++){
+	for(int k=1; k<=7; k++){
+	  twiddle[t++] = Math.cos(-2*Math.PI*p*k/m);
+	  twiddle[t++] = Math.sin(-2*Math.PI*p*k/m); }}}
+    /* the final radix-4 pass, if any, has trivial twiddles */
+    for(int k=1; k<=3; k++)
+      twiddle[t+2*k-2] = 1;
+  }
+
+  public void transform(double data[], int i0, int stride) {
+    checkData(data,i0,stride);
+    transform_internal(data, i0, stride, -1); }
+
+  public void backtransform (double data[], int i0, int stride){
+    checkData(data,i0,stride);
+    transform_internal(data, i0, stride, +1); }
+
+  void transform_internal(double data[], int i0, int stride, int sign) {
+    if (n == 1) return;
+    double w[] = work.get();
+    /* the first pass reads data and the last pass writes it, the others alternate
+       between the two work arrays */
+    double src[] = data;
+    int so = i0, ss = stride;
+    int x = 0;
+    int s = 1, t = 0;
+    for(int m=n; m>last; t+=14*(m/8), m/=8, s*=8){
+      pass8(src,so,ss, w,x,2, m,s,t,sign);
+      src = w; so = x; ss = 2;
+      x = 2*n-x; }
+    if (last == 8)
+      pass8(src,so,ss, data,i0,stride, 8,s,t,sign);
+    else if (last == 4)
+      pass4(src,so,ss, data,i0,stride, 4,s,t,sign);
+    else
+      pass2(src,so,ss, data,i0,stride, s);
+  }
+
+  /* radix-8 pass over sub-transforms of length m, s of which are interleaved.
+     value j is read from src[so+ss*j] and written to dst[dO+ds*j]. */
+  private void pass8(double src[], int so, int ss, double dst[], int dO, int ds,
+		     int m, int s, int t, int sign) {
+    final double c = Math.sqrt(0.5);
+    int m8 = m/8;
+    int sj = ss*s*m8;		// distance between the inputs of a butterfly
+    int sk = ds*s;		// distance between its outputs
+    for(int p=0; p<m8; p++, t+=14){
+      double w1r = twiddle[t+0], w1i = -sign*twiddle[t+1];
+      double w2r = twiddle[t+2], w2i = -sign*twiddle[t+3];
+      double w3r = twiddle[t+4], w3i = -sign*twiddle[t+5];
+      double w4r = twiddle[t+6], w4i = -sign*twiddle[t+7];
+      double w5r = twiddle[t+8], w5i = -sign*twiddle[t+9];
+      double w6r = twiddle[t+10], w6i = -sign*twiddle[t+11];
+      double w7r = twiddle[t+12], w7i = -sign*twiddle[t+13];
+      int a = so+ss*s*p;
+      int o = dO+ds*8*s*p;
+      for(int q=0; q<s; q++, a+=ss, o+=ds){
+	/* length 4 transforms of the even and odd inputs */
+	double x0r = src[a],      x0i = src[a+1];
+	double x2r = src[a+2*sj], x2i = src[a+2*sj+1];
+	double x4r = src[a+4*sj], x4i = src[a+4*sj+1];
+	double x6r = src[a+6*sj], x6i = src[a+6*sj+1];
+	double apcr = x0r+x4r, apci = x0i+x4i;
+	double amcr = x0r-x4r, amci = x0i-x4i;
+	double bpdr = x2r+x6r, bpdi = x2i+x6i;
+	double jbmdr = -sign*(x2i-x6i), jbmdi = sign*(x2r-x6r);
+	double e0r = apcr+bpdr,  e0i = apci+bpdi;
+	double e1r = amcr+jbmdr, e1i = amci+jbmdi;
+	double e2r = apcr-bpdr,  e2i = apci-bpdi;
+	double e3r = amcr-jbmdr, e3i = amci-jbmdi;
+	double x1r = src[a+sj],   x1i = src[a+sj+1];
+	double x3r = src[a+3*sj], x3i = src[a+3*sj+1];
+	double x5r = src[a+5*sj], x5i = src[a+5*sj+1];
+	double x7r = src[a+7*sj], x7i = src[a+7*sj+1];
+	apcr = x1r+x5r; apci = x1i+x5i;
+	amcr = x1r-x5r; amci = x1i-x5i;
+	bpdr = x3r+x7r; bpdi = x3i+x7i;
+	jbmdr = -sign*(x3i-x7i); jbmdi = sign*(x3r-x7r);
+	double o0r = apcr+bpdr,  o0i = apci+bpdi;
+	double o1r = amcr+jbmdr, o1i = amci+jbmdi;
+	double o2r = apcr-bpdr,  o2i = apci-bpdi;
+	double o3r = amcr-jbmdr, o3i = amci-jbmdi;
+	/* multiply the odd parts by the eighth roots of unity exp(sign 2 pi i k/8) */
+	double zr = c*(o1r-sign*o1i), zi = c*(o1i+sign*o1r);
+	o1r = zr; o1i = zi;
+	zr = -sign*o2i; zi = sign*o2r;
+	o2r = zr; o2i = zi;
+	zr = -c*(o3r+sign*o3i); zi = c*(sign*o3r-o3i);
+	o3r = zr; o3i = zi;
+	dst[o] = e0r+o0r;
+	dst[o+1] = e0i+o0i;
+	zr = e1r+o1r; zi = e1i+o1i;
+	dst[o+sk]   = w1r*zr-w1i*zi;
+	dst[o+sk+1] = w1r*zi+w1i*zr;
+	zr = e2r+o2r; zi = e2i+o2i;
+	dst[o+2*sk]   = w2r*zr-w2i*zi;
+	dst[o+2*sk+1] = w2r*zi+w2i*zr;
+	zr = e3r+o3r; zi = e3i+o3i;
+	dst[o+3*sk]   = w3r*zr-w3i*zi;
+	dst[o+3*sk+1] = w3r*zi+w3i*zr;
+	zr = e0r-o0r; zi = e0i-o0i;
+	dst[o+4*sk]   = w4r*zr-w4i*zi;
+	dst[o+4*sk+1] = w4r*zi+w4i*zr;
+	zr = e1r-o1r; zi = e1i-o1i;
+	dst[o+5*sk]   = w5r*zr-w5i*zi;
+	dst[o+5*sk+1] = w5r*zi+w5i*zr;
+	zr = e2r-o2r; zi = e2i-o2i;
+	dst[o+6*sk]   = w6r*zr-w6i*zi;
+	dst[o+6*sk+1] = w6r*zi+w6i*zr;
+	zr = e3r-o3r; zi = e3i-o3i;
+	dst[o+7*sk]   = w7r*zr-w7i*zi;
+	dst[o+7*sk+1] = w7r*zi+w7i*zr; }}
+  }
+
+  /* radix-4 pass over sub-transforms of length m, s of which are interleaved.
+     value j is read from src[so+ss*j] and written to dst[dO+ds*j]. */
+  private void pass4(double src[], int so, int ss, double dst[], int dO, int ds,
+		     int m, int s, int t, int sign) {
+    int m4 = m/4;
+    for(int p=0; p<m4; p++, t+=6){
+      double w1r = twiddle[t],   w1i = -sign*twiddle[t+1];
+      double w2r = twiddle[t+2], w2i = -sign*twiddle[t+3];
+      double w3r = twiddle[t+4], w3i = -sign*twiddle[t+5];
+      int a = so+ss*s*p;
+      int b = a+ss*s*m4;
+      int c = b+ss*s*m4;
+      int d = c+ss*s*m4;
+      int o = dO+ds*4*s*p;
+      for(int q=0; q<s; q++, a+=ss, b+=ss, c+=ss, d+=ss, o+=ds){
+	double ar = src[a], ai = src[a+1];
+	double br = src[b], bi = src[b+1];
+	double cr = src[c], ci = src[c+1];
+	double dr = src[d], di = src[d+1];
+	double apcr = ar+cr, apci = ai+ci;
+	double amcr = ar-cr, amci = ai-ci;
+	double bpdr = br+dr, bpdi = bi+di;
+	/* sign*i*(b-d) */
+	double jbmdr = -sign*(bi-di), jbmdi = sign*(br-dr);
+	dst[o]   = apcr+bpdr;
+	dst[o+1] = apci+bpdi;
+	double zr = amcr+jbmdr, zi = amci+jbmdi;
+	dst[o+ds*s]   = w1r*zr-w1i*zi;
+	dst[o+ds*s+1] = w1r*zi+w1i*zr;
+	zr = apcr-bpdr; zi = apci-bpdi;
+	dst[o+2*ds*s]   = w2r*zr-w2i*zi;
+	dst[o+2*ds*s+1] = w2r*zi+w2i*zr;
+	zr = amcr-jbmdr; zi = amci-jbmdi;
+	dst[o+3*ds*s]   = w3r*zr-w3i*zi;
+	dst[o+3*ds*s+1] = w3r*zi+w3i*zr; }}
+  }
+
+  /* final radix-2 pass over s interleaved transforms of length 2 */
+  private void pass2(double src[], int so, int ss, double dst[], int dO, int ds, int s) {
+    for(int q=0; q<s; q++){
+      int a = so+ss*q, b = a+ss*s;
+      double ar = src[a], ai = src[a+1];
+      double br = src[b], bi = src[b+1];
+      dst[dO+ds*q]       = ar+br;
+      dst[dO+ds*q+1]     = ai+bi;
+      dst[dO+ds*(q+s)]   = ar-br;
+      dst[dO+ds*(q+s)+1] = ai-bi; }
+  }
+}
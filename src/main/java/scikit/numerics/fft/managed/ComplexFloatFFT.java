@@ -0,0 +1,92 @@
+package scikit.numerics.fft.managed;
+
+/** Computes FFT's of complex, single precision data, stored like the double precision
+  * data of {@link ComplexDoubleFFT ComplexDoubleFFT}:
+  *<PRE>
+  *    Re(d[i]) = data[i0 + stride*i]
+  *    Im(d[i]) = data[i0 + stride*i+1]
+  *</PRE>
+  * Each line is converted into a small per-thread double precision buffer, transformed
+  * there by the plan of ComplexDoubleFFT.forLength(n), and rounded back. Arrays of
+  * floats take half the memory and bandwidth of doubles, while the arithmetic of each
+  * 1D transform is still carried out in double precision.
+  * The transformed data is returned in the original data array in
+  * <a href="package-summary.html#wraparound">wrap-around</A> order.
+  */
+public class ComplexFloatFFT {
+  int n;
+  ComplexDoubleFFT fft;
+
+  private ThreadLocal<double[]> line = new ThreadLocal<double[]>() {
+    protected double[] initialValue() {
+      return new double[2*n]; }};
+
+  /** Create an FFT for transforming n points of complex, single precision data. */
+  public ComplexFloatFFT(int n){
+    if (n <= 0)
+      throw new IllegalArgumentException("The transform length must be >=0 : "+n);
+    this.n = n;
+    fft = ComplexDoubleFFT.forLength(n); }
+
+  protected void checkData(float data[], int i0, int stride){
+    if (i0 < 0)
+      throw new IllegalArgumentException("The offset must be >=0 : "+i0);
+    if (stride < 2)
+      throw new IllegalArgumentException("The stride must be >=2 : "+stride);
+    if (i0+stride*(n-1)+2 > data.length)
+      throw new IllegalArgumentException("The data array is too small for "+n+":"+
+					 "i0="+i0+" stride="+stride+
+					 " data.length="+data.length); }
+
+  /** Compute the Fast Fourier Transform of data leaving the result in data.
+    * The array data must be dimensioned (at least) 2*n, consisting of alternating
+    * real and imaginary parts. */
+  public void transform (float data[]) {
+    transform (data, 0,2); }
+
+  /** Compute the Fast Fourier Transform of data leaving the result in data. */
+  public void transform (float data[], int i0, int stride) {
+    checkData(data,i0,stride);
+    transformLines(data,i0,stride,1,line.get(),-1); }
+
+  /** Compute the (unnomalized) inverse FFT of data, leaving it in place.*/
+  public void backtransform (float data[]) {
+    backtransform(data,0,2); }
+
+  /** Compute the (unnomalized) inverse FFT of data, leaving it in place.*/
+  public void backtransform (float data[], int i0, int stride) {
+    checkData(data,i0,stride);
+    transformLines(data,i0,stride,1,line.get(),+1); }
+
+  /** Return the normalization factor.
+   * Multiply the elements of the backtransform'ed data to get the normalized inverse.*/
+  public double normalization(){
+    return 1.0/n; }
+
+  /** Compute the (nomalized) inverse FFT of data, leaving it in place.*/
+  public void inverse (float data[], int i0, int stride) {
+    backtransform(data, i0, stride);
+    float norm = (float)normalization();
+    for (int i = 0; i < n; i++) {
+      data[i0+stride*i]   *= norm;
+      data[i0+stride*i+1] *= norm; }}
+
+  /** Transforms (sign = -1) or backtransforms (sign = +1) count lines which are
+    * interleaved in data, as ComplexDoubleFFT.transformLines does. The lines are
+    * converted into the double precision array tile, which must hold at least
+    * 2*n*count values. */
+  void transformLines(float data[], int i0, int stride, int count, double tile[], int sign) {
+    int w = 2*count;
+    for (int i = 0; i < n; i++) {
+      int k = i0+stride*i;
+      for (int j = 0; j < w; j++)
+	tile[w*i+j] = data[k+j]; }
+    for (int j = 0; j < count; j++) {
+      if (sign < 0) fft.transform(tile, 2*j, w);
+      else fft.backtransform(tile, 2*j, w); }
+    for (int i = 0; i < n; i++) {
+      int k = i0+stride*i;
+      for (int j = 0; j < w; j++)
+	data[k+j] = (float)tile[w*i+j]; }
+  }
+}
@@ -0,0 +1,49 @@
+package scikit.numerics.fft.managed;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import scikit.numerics.Workers;
+
+/** Distributes independent 1D lines (pencils) of a multidimensional transform over
+  * the workers of a ForkJoinPool. Each worker transforms a contiguous range of lines,
+  * using the per-thread scratch space of the 1D plans.
+  */
+abstract class ParallelLines {
+  /** Processes lines lo through hi-1. */
+  abstract void run(int lo, int hi);
+
+  /** Processes lines 0 through count-1, in parallel if pool is not null. */
+  void invoke(ForkJoinPool pool, int count) {
+    if (pool == null || count < 2)
+      run(0, count);
+    else
+      pool.invoke(new Task(0, count, Math.max(1, count / (4*pool.getParallelism()))));
+  }
+
+  /** Returns the pool of an FFT: the pool it was given with setPool(), if any, else
+    * the shared pool of Workers if it was set to more than one thread, else null
+    * (meaning serial execution). The shared pool is looked up for each transform,
+    * as Workers.setThreads() replaces it. */
+  static ForkJoinPool pool(ForkJoinPool given, int threads) {
+    if (given != null) return given;
+    return (threads <= 1) ? null : Workers.pool();
+  }
+
+  @SuppressWarnings("serial")
+  private class Task extends RecursiveAction {
+    int lo, hi, grain;
+
+    Task(int lo, int hi, int grain) {
+      this.lo = lo;
+      this.hi = hi;
+      this.grain = grain; }
+
+    protected void compute() {
+      if (hi - lo <= grain)
+	run(lo, hi);
+      else {
+	int mid = (lo + hi) >>> 1;
+	invokeAll(new Task(lo, mid, grain), new Task(mid, hi, grain)); }}
+  }
+}
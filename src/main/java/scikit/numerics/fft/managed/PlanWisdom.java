@@ -0,0 +1,98 @@
+package scikit.numerics.fft.managed;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * Remembers which FFT implementation was measured to be fastest for each transform
+ * size, so that the measurement is made only once per machine. The choices are kept
+ * in a properties file, by default .scikit-fft-wisdom in the user's home directory,
+ * or the file named by the system property scikit.fft.wisdom. Measurements are
+ * made only if the system property scikit.fft.measure is set to true; otherwise
+ * the default implementations are used and the file is neither read nor written.
+ */
+public class PlanWisdom {
+	private static Properties wisdom;
+
+	/** Returns true if measurements were enabled by scikit.fft.measure=true. */
+	public static boolean measuring() {
+		return Boolean.getBoolean("scikit.fft.measure");
+	}
+
+	/** Returns the file in which the choices are kept. */
+	public static File file() {
+		String name = System.getProperty("scikit.fft.wisdom");
+		if (name != null)
+			return new File(name);
+		return new File(System.getProperty("user.home"), ".scikit-fft-wisdom");
+	}
+
+	/** Returns the implementation recorded for key, or null if none is. */
+	public static synchronized String get(String key) {
+		return load().getProperty(key);
+	}
+
+	/** Records the implementation for key and writes the wisdom file. */
+	public static synchronized void put(String key, String value) {
+		load().setProperty(key, value);
+		try {
+			OutputStream out = new FileOutputStream(file());
+			try {
+				wisdom.store(out, "fastest FFT implementations measured on this machine");
+			}
+			finally {
+				out.close();
+			}
+		}
+		catch (IOException e) {
+			System.out.println(e);
+		}
+	}
+
+	/**
+	 * Returns the time in seconds of one call to task.run(), as the best of several
+	 * trials, each of which repeats the task for at least a few milliseconds.
+	 */
+	public static double time(Runnable task) {
+		task.run(); // warm up
+		double best = Double.POSITIVE_INFINITY;
+		for (int trial = 0; trial < 3; trial++) {
+			int reps = 0;
+			long start = System.nanoTime(), elapsed;
+			do {
+				task.run();
+				reps++;
+				elapsed = System.nanoTime() - start;
+			} while (elapsed < 5000000);
+			best = Math.min(best, 1e-9 * elapsed / reps);
+		}
+		return best;
+	}
+
+	private static Properties load() {
+		if (wisdom == null) {
+			wisdom = new Properties();
+			File f = file();
+			if (f.exists()) {
+				try {
+					InputStream in = new FileInputStream(f);
+					try {
+						wisdom.load(in);
+					}
+					finally {
+						in.close();
+					}
+				}
+				catch (IOException e) {
+					System.out.println(e);
+				}
+			}
+		}
+		return wisdom;
+	}
+}
@@ -0,0 +1,98 @@
+package scikit.numerics.fft.managed;
+
+import java.util.concurrent.ForkJoinPool;
+
+/** Computes the FFT of 2 dimensional real, double precision data.
+  * The real data is stored in Row-Major order,
+  *<PRE>
+  *    d[i,j] = data[i*ncols + j]
+  *</PRE>
+  * Its transform obeys D[-i,-j] = conj(D[i,j]), so only the coefficients with
+  * j = 0..ncols/2 are stored, each row padded to h = ncols/2+1 complex values:
+  *<PRE>
+  *    Re(D[i,j]) = spec[2*(i*h + j)]
+  *    Im(D[i,j]) = spec[2*(i*h + j) + 1]
+  *</PRE>
+  * in <a href="package-summary.html#wraparound">wrap-around</A> order along i.
+  * Compared to a complex transform of the same data it needs half the arithmetic
+  * and half the memory. The number of columns, ncols, must be even.
+  */
+public class RealDouble2DFFT {
+  int nrows;
+  int ncols;
+  RealDoubleFFT_Even rowFFT;
+  ComplexDouble2DFFT spectrumFFT;	// transforms the columns of the half spectrum
+
+  /** Create an FFT for transforming nrows*ncols points of real, double precision
+    * data. */
+  public RealDouble2DFFT(int nrows, int ncols) {
+    this.nrows = nrows;
+    this.ncols = ncols;
+    rowFFT = new RealDoubleFFT_Even(ncols);
+    spectrumFFT = new ComplexDouble2DFFT(nrows, ncols/2+1);
+  }
+
+  /** Sets whether the independent row and column transforms are distributed
+    * over threads, as in ComplexDouble2DFFT.setThreads(). The default, 1,
+    * transforms serially. */
+  public void setThreads(int threads) {
+    spectrumFFT.setThreads(threads); }
+
+  /** Shares an existing pool of worker threads, or transforms serially if pool
+    * is null. */
+  public void setPool(ForkJoinPool pool) {
+    spectrumFFT.setPool(pool); }
+
+  /** Returns the number of doubles in the half spectrum, 2*nrows*(ncols/2+1). */
+  public int spectrumLength() {
+    return 2*nrows*(ncols/2+1); }
+
+  protected void checkData(double src[], double dst[]){
+    if (nrows*ncols > src.length || spectrumLength() > dst.length)
+      throw new IllegalArgumentException("The data arrays are too small for "+
+					 nrows+"x"+ncols+" lengths="+src.length+","+dst.length);}
+
+  /** Compute the Fast Fourier Transform of the real data src, leaving the half
+    * spectrum in dst. The arrays may be the same, in which case it must be
+    * dimensioned spectrumLength(). */
+  public void transform(double src[], double dst[]) {
+    checkData(src,dst);
+    /* spread the rows to the row span of the spectrum, last row first so that
+       src and dst may coincide */
+    for(int i=nrows-1; i>=0; i--)
+      System.arraycopy(src,i*ncols,dst,i*(ncols+2),ncols);
+    rows(dst,-1);
+    spectrumFFT.cols(dst,ncols+2,-1); }
+
+  /** Compute the (unnormalized) inverse FFT of the half spectrum src, leaving the
+    * real result in dst. The contents of src are destroyed. The arrays may be the
+    * same. */
+  public void backtransform(double src[], double dst[]) {
+    checkData(dst,src);
+    spectrumFFT.cols(src,ncols+2,+1);
+    rows(src,+1);
+    for(int i=0; i<nrows; i++)
+      System.arraycopy(src,i*(ncols+2),dst,i*ncols,ncols); }
+
+  /* transforms (sign = -1) or backtransforms (sign = +1) every row; serial
+     transforms call rows(..., lo, hi) directly so that they allocate nothing */
+  private void rows(final double data[], final int sign) {
+    ForkJoinPool pool = spectrumFFT.pool();
+    if (pool == null) {
+      rows(data,sign,0,nrows);
+      return; }
+    new ParallelLines() {
+      void run(int lo, int hi) {
+	rows(data,sign,lo,hi); }
+    }.invoke(pool, nrows); }
+
+  private void rows(double data[], int sign, int lo, int hi) {
+    for(int i=lo; i<hi; i++){
+      if (sign < 0) rowFFT.transformHalf(data,i*(ncols+2));
+      else rowFFT.backtransformHalf(data,i*(ncols+2)); }}
+
+  /** Return the normalization factor.
+   * Multiply the elements of the backtransform'ed data to get the normalized inverse.*/
+  public double normalization(){
+    return 1.0/((double) nrows*ncols); }
+}
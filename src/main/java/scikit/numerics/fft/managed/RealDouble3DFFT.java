@@ -0,0 +1,105 @@
+package scikit.numerics.fft.managed;
+
+import java.util.concurrent.ForkJoinPool;
+
+/** Computes the FFT of 3 dimensional real, double precision data. The real data is
+ * stored in Row-Major order,
+ *<PRE>
+ *    d[i1,i2,i3] = data[i1*dim3*dim2 + i2*dim3 + i3]
+ *</PRE>
+ * Its transform obeys D[-k1,-k2,-k3] = conj(D[k1,k2,k3]), so only the coefficients
+ * with k3 = 0..dim3/2 are stored, each row padded to h3 = dim3/2+1 complex values:
+ *<PRE>
+ *    Re(D[k1,k2,k3]) = spec[2*(k1*h3*dim2 + k2*h3 + k3)]
+ *    Im(D[k1,k2,k3]) = spec[2*(k1*h3*dim2 + k2*h3 + k3)+1]
+ *</PRE>
+ * in <a href="package-summary.html#wraparound">wrap-around</A> order along k1 and k2.
+ * This is the layout of FFTW's real to complex transforms. Compared to a complex
+ * transform of the same data it needs half the arithmetic and half the memory.
+ * The last dimension, dim3, must be even.
+ */
+public class RealDouble3DFFT {
+	int dim1, dim2, dim3;
+	RealDoubleFFT_Even dim3FFT;
+	ComplexDouble3DFFT spectrumFFT; // transforms the half spectrum along dims 1 and 2
+
+	/** Create an FFT for transforming dim1*dim2*dim3 points of real, double precision
+	 * data. */
+	public RealDouble3DFFT(int dim1, int dim2, int dim3) {
+		this.dim1 = dim1;
+		this.dim2 = dim2;
+		this.dim3 = dim3;
+		dim3FFT = new RealDoubleFFT_Even(dim3);
+		spectrumFFT = new ComplexDouble3DFFT(dim1, dim2, dim3/2+1);
+	}
+
+	/** Sets whether the independent 1D transforms of each pass are distributed
+	 * over threads, as in ComplexDouble3DFFT.setThreads(). The default, 1,
+	 * transforms serially. */
+	public void setThreads(int threads) {
+		spectrumFFT.setThreads(threads);
+	}
+
+	/** Shares an existing pool of worker threads, or transforms serially if pool
+	 * is null. */
+	public void setPool(ForkJoinPool pool) {
+		spectrumFFT.setPool(pool);
+	}
+
+	/** Returns the number of doubles in the half spectrum, 2*dim1*dim2*(dim3/2+1). */
+	public int spectrumLength() {
+		return 2*dim1*dim2*(dim3/2+1);
+	}
+
+	protected void checkData(double src[], double dst[]) {
+		if (dim1*dim2*dim3 > src.length || spectrumLength() > dst.length)
+			throw new IllegalArgumentException("The data arrays are too small for "+
+					dim1+"x"+dim2+"x"+dim3+", lengths="+src.length+","+dst.length);
+	}
+
+	/** Compute the Fast Fourier Transform of the real data src, leaving the half
+	 * spectrum in dst. The arrays may be the same, in which case it must be
+	 * dimensioned spectrumLength(). */
+	public void transform(double src[], double dst[]) {
+		checkData(src, dst);
+		// spread the rows to the row span of the spectrum, last row first so that
+		// src and dst may coincide
+		for (int r = dim1*dim2-1; r >= 0; r--)
+			System.arraycopy(src, r*dim3, dst, r*(dim3+2), dim3);
+		rows(dst, -1);
+		spectrumFFT.pass(dst, 2, -1);
+		spectrumFFT.pass(dst, 1, -1);
+	}
+
+	/** Compute the (unnormalized) inverse FFT of the half spectrum src, leaving the
+	 * real result in dst. The contents of src are destroyed. The arrays may be the
+	 * same. */
+	public void backtransform(double src[], double dst[]) {
+		checkData(dst, src);
+		spectrumFFT.pass(src, 1, +1);
+		spectrumFFT.pass(src, 2, +1);
+		rows(src, +1);
+		for (int r = 0; r < dim1*dim2; r++)
+			System.arraycopy(src, r*(dim3+2), dst, r*dim3, dim3);
+	}
+
+	// transforms (sign = -1) or backtransforms (sign = +1) every row along dim3
+	private void rows(final double data[], final int sign) {
+		new ParallelLines() {
+			void run(int lo, int hi) {
+				for (int r = lo; r < hi; r++) {
+					if (sign < 0)
+						dim3FFT.transformHalf(data, r*(dim3+2));
+					else
+						dim3FFT.backtransformHalf(data, r*(dim3+2));
+				}
+			}
+		}.invoke(spectrumFFT.pool(), dim1*dim2);
+	}
+
+	/** Return the normalization factor.
+	 * Multiply the elements of the backtransform'ed data to get the normalized inverse.*/
+	public double normalization(){
+		return 1.0 / (dim1*dim2*dim3);
+	}
+}
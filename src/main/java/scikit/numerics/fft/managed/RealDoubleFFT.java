@@ -62,6 +62,17 @@ public abstract class RealDoubleFFT {
     * @see <a href="package-summary.html#wraparound">wraparound format</A> */
   public abstract double[] toWraparoundOrder(double data[], int i0, int stride);
 
+  /** Copy data in wraparound order into dst, which must be dimensioned (at least)
+    * 2*n and must not be data, and return dst.
+    * i0 and stride are used to traverse data; dst is filled in packed (i0=0,
+    * stride=2) complex format. This implementation copies the array returned by
+    * toWraparoundOrder(data,i0,stride); subclasses override it to write dst
+    * directly.
+    * @see <a href="package-summary.html#wraparound">wraparound format</A> */
+  public double[] toWraparoundOrder(double data[], int i0, int stride, double dst[]){
+    System.arraycopy(toWraparoundOrder(data,i0,stride),0,dst,0,2*n);
+    return dst; }
+
   /** Compute the (unnomalized) inverse FFT of data, leaving it in place.*/
   public void backtransform (double data[]) {
     backtransform(data,0,1); }
@@ -10,13 +10,18 @@ package scikit.numerics.fft.managed;
 
 public class RealDoubleFFT_Even extends RealDoubleFFT {
   ComplexDoubleFFT fft;
+  double twiddle[];		// cos, sin of 2 pi k/n for k = 0..n/4
 
   /** Create an FFT for transforming n points of real, double precision data. */
   public RealDoubleFFT_Even(int n){
     super(n);
     if (n%2 != 0)
       throw new IllegalArgumentException(n+" is not even");
-    fft = new ComplexDoubleFFT_Mixed(n/2);
+    fft = ComplexDoubleFFT.forLength(n/2);
+    twiddle = new double[2*(n/4+1)];
+    for(int k=0; k<=n/4; k++){
+      twiddle[2*k]   = Math.cos(2*Math.PI*k/n);
+      twiddle[2*k+1] = Math.sin(2*Math.PI*k/n); }
   }
 
   /** Compute the Fast Fourier Transform of data leaving the result in data. */
@@ -30,24 +35,30 @@ public class RealDoubleFFT_Even extends RealDoubleFFT {
     * packed (i0=0, stride=1) format.
     * @see <a href="package-summary.html#wraparound">wraparound format</A> */
   public double[] toWraparoundOrder(double data[]){
-    double newdata[] = new double[2*n];
-    int nh = n/2;
-    newdata[0]   = data[0];
-    newdata[1]   = 0.0;
-    newdata[n]   = data[1];
-    newdata[n+1] = 0.0;
-    for(int i=1; i<nh; i++){
-      newdata[2*i]      = data[2*i];
-      newdata[2*i+1]    = data[2*i+1];
-      newdata[2*(n-i)]  = data[2*i];
-      newdata[2*(n-i)+1]=-data[2*i+1]; }
-    return newdata; }
+    return toWraparoundOrder(data,0,1,new double[2*n]); }
 
   /** Return data in wraparound order.
     * @see <a href="package-summary.html#wraparound">wraparound format</A> */
   public double[] toWraparoundOrder(double data[], int i0, int stride) {
     throw new Error("Not Implemented!"); }  
 
+  /** Copy data in wraparound order into dst and return dst. Only the packed
+    * layout, i0=0 and stride=1, is implemented. */
+  public double[] toWraparoundOrder(double data[], int i0, int stride, double dst[]) {
+    if ((i0!=0)||(stride!=1))
+      throw new Error("Not Implemented!");
+    int nh = n/2;
+    dst[0]   = data[0];
+    dst[1]   = 0.0;
+    dst[n]   = data[1];
+    dst[n+1] = 0.0;
+    for(int i=1; i<nh; i++){
+      dst[2*i]      = data[2*i];
+      dst[2*i+1]    = data[2*i+1];
+      dst[2*(n-i)]  = data[2*i];
+      dst[2*(n-i)+1]=-data[2*i+1]; }
+    return dst; }
+
 
   /** Compute the (unnomalized) inverse FFT of data, leaving it in place.*/
   public void backtransform (double data[]){
@@ -90,6 +101,60 @@ public class RealDoubleFFT_Even extends RealDoubleFFT {
       data[nh+1] *= -1;
   }
 
+  /** Compute the Fast Fourier Transform of the n real values data[i0..i0+n), leaving
+    * the coefficients D[0..n/2] in data[i0..i0+n+2) as alternating real and imaginary
+    * parts. The remaining coefficients follow from D[n-i] = conj(D[i]).
+    * The array must therefore have room for 2 values beyond the input. */
+  public void transformHalf (double data[], int i0) {
+    int nh = n/2;
+    fft.transform(data,i0,2);
+    double d0 = data[i0], d1 = data[i0+1];
+    data[i0]     = d0+d1;
+    data[i0+1]   = 0.0;
+    data[i0+n]   = d0-d1;
+    data[i0+n+1] = 0.0;
+    /* split the packed transform Z[k] of (even + i odd) values into its even
+       and odd parts, E[k] and O[k], and combine them as D[k] = E[k] + w^k O[k] */
+    for(int k=1; 2*k<=nh; k++){
+      int a = i0+2*k;
+      int b = i0+n-2*k;
+      double er =  0.5*(data[a  ]+data[b  ]);
+      double ei =  0.5*(data[a+1]-data[b+1]);
+      double or =  0.5*(data[a+1]+data[b+1]);
+      double oi = -0.5*(data[a  ]-data[b  ]);
+      double wr = twiddle[2*k], wi = twiddle[2*k+1];
+      double tr = wr*or+wi*oi;
+      double ti = wr*oi-wi*or;
+      data[a  ] =  er+tr;
+      data[a+1] =  ei+ti;
+      data[b  ] =  er-tr;
+      data[b+1] = -ei+ti; }
+  }
+
+  /** Compute the (unnomalized) inverse FFT of the coefficients D[0..n/2] stored by
+    * transformHalf at data[i0..i0+n+2), leaving the n real values in data[i0..i0+n). */
+  public void backtransformHalf (double data[], int i0) {
+    int nh = n/2;
+    double d0 = data[i0], dh = data[i0+n];
+    data[i0]   = d0+dh;
+    data[i0+1] = d0-dh;
+    for(int k=1; 2*k<=nh; k++){
+      int a = i0+2*k;
+      int b = i0+n-2*k;
+      double er = data[a  ]+data[b  ];
+      double ei = data[a+1]-data[b+1];
+      double tr = data[a  ]-data[b  ];
+      double ti = data[a+1]+data[b+1];
+      double wr = twiddle[2*k], wi = twiddle[2*k+1];
+      double or = wr*tr-wi*ti;
+      double oi = wr*ti+wi*tr;
+      data[a  ] =  er-oi;
+      data[a+1] =  ei+or;
+      data[b  ] =  er+oi;
+      data[b+1] = -ei+or; }
+    fft.backtransform(data,i0,2);
+  }
+
   /** Compute the Fast Fourier Transform of data leaving the result in data. */
   public void transform (double data[], int i0, int stride) {
     throw new Error("Not Implemented!"); }
@@ -221,19 +221,21 @@ public class RealDoubleFFT_Radix2 extends RealDoubleFFT {
     * packed (i0=0, stride=1) format.
     * @see <a href="package-summary.html#wraparound">wraparound format</A> */
   public double[] toWraparoundOrder(double data[], int i0, int stride) {
+    return toWraparoundOrder(data,i0,stride,new double[2*n]); }
+
+  public double[] toWraparoundOrder(double data[], int i0, int stride, double dst[]) {
     checkData(data,i0,stride);
-    double newdata[] = new double[2*n];
     int nh = n/2;
-    newdata[0]   = data[i0];
-    newdata[1]   = 0.0;
-    newdata[n]   = data[i0+stride*nh];
-    newdata[n+1] = 0.0;
+    dst[0]   = data[i0];
+    dst[1]   = 0.0;
+    dst[n]   = data[i0+stride*nh];
+    dst[n+1] = 0.0;
     for(int i=1; i<nh; i++){
-      newdata[2*i]      = data[i0+stride*i];
-      newdata[2*i+1]    = data[i0+stride*(n-i)];
-      newdata[2*(n-i)]  = data[i0+stride*i];
-      newdata[2*(n-i)+1]=-data[i0+stride*(n-i)]; }
-    return newdata; }
+      dst[2*i]      = data[i0+stride*i];
+      dst[2*i+1]    = data[i0+stride*(n-i)];
+      dst[2*(n-i)]  = data[i0+stride*i];
+      dst[2*(n-i)+1]=-data[i0+stride*(n-i)]; }
+    return dst; }
 
   protected void bitreverse(double data[], int i0, int stride) {
     /* This is the Goldrader bit-reversal algorithm */
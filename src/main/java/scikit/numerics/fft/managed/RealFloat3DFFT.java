@@ -0,0 +1,176 @@
+package scikit.numerics.fft.managed;
+
+import java.util.concurrent.ForkJoinPool;
+
+/** Computes the FFT of 3 dimensional real, single precision data, storing the half
+ * spectrum in single precision. The layouts of the real data and of its spectrum are
+ * those of {@link RealDouble3DFFT RealDouble3DFFT}, with float in place of double.
+ * Lines are transformed in per-thread double precision buffers, as in
+ * {@link ComplexFloatFFT ComplexFloatFFT}, so only the storage between passes is
+ * rounded to single precision. The last dimension, dim3, must be even.
+ */
+public class RealFloat3DFFT {
+	int dim1, dim2, dim3;
+	RealDoubleFFT_Even dim3FFT;
+	ComplexFloatFFT dim1FFT, dim2FFT;
+	ForkJoinPool pool; // from setPool(), or null
+	int threads = 1; // from setThreads()
+
+	// number of adjacent strided lines transformed together in a tile
+	static final int BLOCK = 16;
+	private ThreadLocal<double[]> tile = new ThreadLocal<double[]>() {
+		protected double[] initialValue() {
+			return new double[Math.max(2*BLOCK*Math.max(dim1, dim2), dim3+2)];
+		}
+	};
+
+	/** Create an FFT for transforming dim1*dim2*dim3 points of real, single precision
+	 * data. */
+	public RealFloat3DFFT(int dim1, int dim2, int dim3) {
+		this.dim1 = dim1;
+		this.dim2 = dim2;
+		this.dim3 = dim3;
+		dim3FFT = new RealDoubleFFT_Even(dim3);
+		dim1FFT = new ComplexFloatFFT(dim1);
+		dim2FFT = (dim1 == dim2 ? dim1FFT : new ComplexFloatFFT(dim2));
+	}
+
+	/** Sets whether the independent 1D transforms of each pass are distributed
+	 * over threads. The default, 1, transforms serially. More threads use the
+	 * shared pool of {@link scikit.numerics.Workers Workers}, which is not
+	 * resized here; its size is set by Workers.setThreads() or
+	 * Matrix.setThreads(). */
+	public void setThreads(int threads) {
+		this.threads = threads;
+		pool = null;
+	}
+
+	/** Shares an existing pool of worker threads, or transforms serially if pool
+	 * is null. */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		threads = 1;
+	}
+
+	// the pool of the current transform, or null for serial transforms
+	ForkJoinPool pool() {
+		return ParallelLines.pool(pool, threads);
+	}
+
+	/** Returns the number of floats in the half spectrum, 2*dim1*dim2*(dim3/2+1). */
+	public int spectrumLength() {
+		return 2*dim1*dim2*(dim3/2+1);
+	}
+
+	protected void checkData(int srcLength, float dst[]) {
+		if (dim1*dim2*dim3 > srcLength || spectrumLength() > dst.length)
+			throw new IllegalArgumentException("The data arrays are too small for "+
+					dim1+"x"+dim2+"x"+dim3+", lengths="+srcLength+","+dst.length);
+	}
+
+	/** Compute the Fast Fourier Transform of the real data src, leaving the half
+	 * spectrum in dst. The arrays may be the same, in which case it must be
+	 * dimensioned spectrumLength(). */
+	public void transform(float src[], float dst[]) {
+		checkData(src.length, dst);
+		for (int r = dim1*dim2-1; r >= 0; r--)
+			System.arraycopy(src, r*dim3, dst, r*(dim3+2), dim3);
+		transform(dst);
+	}
+
+	/** Compute the Fast Fourier Transform of the real data src, leaving the half
+	 * spectrum in dst. */
+	public void transform(double src[], float dst[]) {
+		checkData(src.length, dst);
+		for (int r = 0; r < dim1*dim2; r++)
+			for (int i = 0; i < dim3; i++)
+				dst[r*(dim3+2)+i] = (float)src[r*dim3+i];
+		transform(dst);
+	}
+
+	/** Compute the (unnormalized) inverse FFT of the half spectrum src, leaving the
+	 * real result in dst. The contents of src are destroyed. The arrays may be the
+	 * same. */
+	public void backtransform(float src[], float dst[]) {
+		checkData(dst.length, src);
+		backtransform(src);
+		for (int r = 0; r < dim1*dim2; r++)
+			System.arraycopy(src, r*(dim3+2), dst, r*dim3, dim3);
+	}
+
+	/** Compute the (unnormalized) inverse FFT of the half spectrum src, leaving the
+	 * real result in dst. The contents of src are destroyed. */
+	public void backtransform(float src[], double dst[]) {
+		checkData(dst.length, src);
+		backtransform(src);
+		for (int r = 0; r < dim1*dim2; r++)
+			for (int i = 0; i < dim3; i++)
+				dst[r*dim3+i] = src[r*(dim3+2)+i];
+	}
+
+	// transforms the real rows, spread to the row span of the spectrum, in place
+	private void transform(float data[]) {
+		rows(data, -1);
+		pass(data, 2, -1);
+		pass(data, 1, -1);
+	}
+
+	private void backtransform(float data[]) {
+		pass(data, 1, +1);
+		pass(data, 2, +1);
+		rows(data, +1);
+	}
+
+	// transforms (sign = -1) or backtransforms (sign = +1) every row along dim3
+	private void rows(final float data[], final int sign) {
+		new ParallelLines() {
+			void run(int lo, int hi) {
+				double line[] = tile.get();
+				for (int r = lo; r < hi; r++) {
+					int i0 = r*(dim3+2);
+					for (int i = 0; i < dim3+2; i++)
+						line[i] = data[i0+i];
+					if (sign < 0)
+						dim3FFT.transformHalf(line, 0);
+					else
+						dim3FFT.backtransformHalf(line, 0);
+					for (int i = 0; i < dim3+2; i++)
+						data[i0+i] = (float)line[i];
+				}
+			}
+		}.invoke(pool(), dim1*dim2);
+	}
+
+	// transforms (sign = -1) or backtransforms (sign = +1) every line of the half
+	// spectrum along dimension dim, 1 or 2
+	private void pass(final float data[], final int dim, final int sign) {
+		final int h3 = dim3/2+1;
+		int count = (dim == 1) ? dim2*h3 : dim1*h3;
+		new ParallelLines() {
+			void run(int lo, int hi) {
+				// lines l and l+1 are adjacent in memory unless l+1 starts a new
+				// plane of the second pass
+				for (int l = lo; l < hi; ) {
+					int count = Math.min(BLOCK, hi - l);
+					if (dim == 1) {
+						// l = i2*h3+i3
+						dim1FFT.transformLines(data, 2*l, 2*h3*dim2, count, tile.get(), sign);
+					}
+					else {
+						// l = i1*h3+i3
+						count = Math.min(count, h3 - l%h3);
+						int i0 = 2*((l/h3)*h3*dim2 + l%h3);
+						dim2FFT.transformLines(data, i0, 2*h3, count, tile.get(), sign);
+					}
+					l += count;
+				}
+			}
+		}.invoke(pool(), count);
+	}
+
+	/** Return the normalization factor.
+	 * Multiply the elements of the backtransform'ed data to get the normalized inverse.*/
+	public double normalization(){
+		return 1.0 / (dim1*dim2*dim3);
+	}
+}
@@ -0,0 +1,69 @@
+package scikit.numerics.sparse;
+
+import static scikit.util.DoubleArray.dot;
+import static scikit.util.DoubleArray.norm;
+
+/**
+ * The right preconditioned biconjugate gradient stabilized method of van der
+ * Vorst, for general nonsymmetric matrices. Stops early, returning false, if the
+ * iteration breaks down.
+ */
+public class BiCGSTABSolver extends IterativeSolver {
+	double[] r, r0, p, v, s, t, y, z;
+
+	public BiCGSTABSolver(SparseMatrix A) {
+		super(A);
+		int n = A.rows();
+		r = new double[n];
+		r0 = new double[n];
+		p = new double[n];
+		v = new double[n];
+		s = new double[n];
+		t = new double[n];
+		y = new double[n];
+		z = new double[n];
+	}
+
+	public boolean solve(double[] b, double[] x) {
+		int n = A.rows();
+		double bnorm = norm(b);
+		if (bnorm == 0)
+			bnorm = 1;
+		residual = residual(b, x, r);
+		System.arraycopy(r, 0, r0, 0, n);
+		double rho = 1, alpha = 1, omega = 1;
+		for (int i = 0; i < n; i++)
+			p[i] = v[i] = 0;
+		for (iterations = 0; iterations < maxIterations && residual > tolerance; iterations++) {
+			double rho2 = dot(r0, r);
+			if (rho2 == 0 || omega == 0)
+				break;
+			double beta = (rho2 / rho) * (alpha / omega);
+			rho = rho2;
+			for (int i = 0; i < n; i++)
+				p[i] = r[i] + beta * (p[i] - omega * v[i]);
+			precondition(p, y);
+			A.times(y, v);
+			alpha = rho / dot(r0, v);
+			for (int i = 0; i < n; i++)
+				s[i] = r[i] - alpha * v[i];
+			if (norm(s) / bnorm <= tolerance) {
+				for (int i = 0; i < n; i++)
+					x[i] += alpha * y[i];
+				residual = norm(s) / bnorm;
+				iterations++;
+				break;
+			}
+			precondition(s, z);
+			A.times(z, t);
+			double tt = dot(t, t);
+			omega = tt == 0 ? 0 : dot(t, s) / tt;
+			for (int i = 0; i < n; i++) {
+				x[i] += alpha * y[i] + omega * z[i];
+				r[i] = s[i] - omega * t[i];
+			}
+			residual = norm(r) / bnorm;
+		}
+		return residual <= tolerance;
+	}
+}
@@ -0,0 +1,48 @@
+package scikit.numerics.sparse;
+
+import static scikit.util.DoubleArray.dot;
+import static scikit.util.DoubleArray.norm;
+
+/**
+ * The preconditioned conjugate gradient method, for symmetric positive definite
+ * matrices and preconditioners.
+ */
+public class ConjugateGradientSolver extends IterativeSolver {
+	double[] r, z, p, q;
+
+	public ConjugateGradientSolver(SparseMatrix A) {
+		super(A);
+		int n = A.rows();
+		r = new double[n];
+		z = new double[n];
+		p = new double[n];
+		q = new double[n];
+	}
+
+	public boolean solve(double[] b, double[] x) {
+		int n = A.rows();
+		double bnorm = norm(b);
+		if (bnorm == 0)
+			bnorm = 1;
+		residual = residual(b, x, r);
+		precondition(r, z);
+		System.arraycopy(z, 0, p, 0, n);
+		double rz = dot(r, z);
+		for (iterations = 0; iterations < maxIterations && residual > tolerance; iterations++) {
+			A.times(p, q);
+			double alpha = rz / dot(p, q);
+			for (int i = 0; i < n; i++) {
+				x[i] += alpha * p[i];
+				r[i] -= alpha * q[i];
+			}
+			residual = norm(r) / bnorm;
+			precondition(r, z);
+			double rz2 = dot(r, z);
+			double beta = rz2 / rz;
+			rz = rz2;
+			for (int i = 0; i < n; i++)
+				p[i] = z[i] + beta * p[i];
+		}
+		return residual <= tolerance;
+	}
+}
@@ -0,0 +1,67 @@
+package scikit.numerics.sparse;
+
+import java.util.Arrays;
+
+/**
+ * The incomplete LU factorization with zero fill-in, M = L U, where the unit
+ * lower triangular L and the upper triangular U have the sparsity pattern of A,
+ * and L U equals A on that pattern. The factors are stored together in the
+ * pattern of A. The square matrix A must store all its diagonal elements.
+ */
+public class ILU0Preconditioner implements Preconditioner {
+	int n;
+	int[] start, index, diag;
+	double[] lu;
+
+	public ILU0Preconditioner(SparseMatrix A) {
+		if (A.rows != A.cols)
+			throw new IllegalArgumentException("Matrix must be square.");
+		n = A.rows;
+		start = A.start;
+		index = A.index;
+		lu = A.value.clone();
+		diag = new int[n];
+		for (int i = 0; i < n; i++) {
+			diag[i] = Arrays.binarySearch(index, start[i], start[i+1], i);
+			if (diag[i] < 0)
+				throw new IllegalArgumentException("Diagonal element "+i+" is not stored.");
+		}
+
+		// position of each column in the current row, or -1
+		int[] pos = new int[n];
+		Arrays.fill(pos, -1);
+		for (int i = 0; i < n; i++) {
+			for (int p = start[i]; p < start[i+1]; p++)
+				pos[index[p]] = p;
+			for (int p = start[i]; p < diag[i]; p++) {
+				int k = index[p];
+				if (lu[diag[k]] == 0)
+					throw new IllegalArgumentException("Zero pivot in row "+k+".");
+				lu[p] /= lu[diag[k]];
+				for (int q = diag[k]+1; q < start[k+1]; q++) {
+					int j = pos[index[q]];
+					if (j >= 0)
+						lu[j] -= lu[p] * lu[q];
+				}
+			}
+			for (int p = start[i]; p < start[i+1]; p++)
+				pos[index[p]] = -1;
+		}
+	}
+
+	public void apply(double[] r, double[] z) {
+		// solve L y = r, then U z = y
+		for (int i = 0; i < n; i++) {
+			double s = r[i];
+			for (int p = start[i]; p < diag[i]; p++)
+				s -= lu[p] * z[index[p]];
+			z[i] = s;
+		}
+		for (int i = n-1; i >= 0; i--) {
+			double s = z[i];
+			for (int p = diag[i]+1; p < start[i+1]; p++)
+				s -= lu[p] * z[index[p]];
+			z[i] = s / lu[diag[i]];
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package scikit.numerics.sparse;
+
+import static scikit.util.DoubleArray.norm;
+
+import scikit.numerics.Jama.Matrix;
+
+/**
+ * Solves A x = b for a square SparseMatrix A by iterative refinement of x,
+ * until the residual |b - A x| falls below the tolerance times |b|. The initial
+ * guess is the contents of x, so that a series of similar systems can start
+ * each from the previous solution.
+ */
+abstract public class IterativeSolver {
+	protected SparseMatrix A;
+	protected Preconditioner M;
+	protected double tolerance = 1e-8;
+	protected int maxIterations;
+	protected int iterations;
+	protected double residual;
+
+	public IterativeSolver(SparseMatrix A) {
+		if (A.rows() != A.cols())
+			throw new IllegalArgumentException("Matrix must be square.");
+		this.A = A;
+		maxIterations = Math.max(A.rows(), 100);
+	}
+
+	/** Sets the preconditioner, or none if M is null. */
+	public void setPreconditioner(Preconditioner M) {
+		this.M = M;
+	}
+
+	/** Sets the relative residual |b - A x| / |b| at which to stop. */
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/** Sets the number of iterations after which to give up, by default max(n, 100). */
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	/** Returns the number of iterations of the last solve. */
+	public int iterations() {
+		return iterations;
+	}
+
+	/** Returns the relative residual |b - A x| / |b| reached by the last solve. */
+	public double residual() {
+		return residual;
+	}
+
+	/**
+	 * Refines x towards the solution of A x = b. Returns true if the tolerance was
+	 * reached.
+	 */
+	abstract public boolean solve(double[] b, double[] x);
+
+	/**
+	 * Returns the solution of A X = B, solving for each column of the dense B in
+	 * turn from a zero initial guess.
+	 * @throws RuntimeException if the tolerance is not reached for some column
+	 */
+	public Matrix solve(Matrix B) {
+		int n = A.rows();
+		if (B.getRowDimension() != n)
+			throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		Matrix X = new Matrix(n, B.getColumnDimension());
+		double[] b = new double[n], x = new double[n];
+		for (int c = 0; c < B.getColumnDimension(); c++) {
+			for (int i = 0; i < n; i++) {
+				b[i] = B.get(i, c);
+				x[i] = 0;
+			}
+			if (!solve(b, x))
+				throw new RuntimeException("Iterative solution did not converge, relative residual "+residual+".");
+			for (int i = 0; i < n; i++)
+				X.set(i, c, x[i]);
+		}
+		return X;
+	}
+
+	// sets z = M^-1 r, or z = r without a preconditioner
+	protected void precondition(double[] r, double[] z) {
+		if (M == null)
+			System.arraycopy(r, 0, z, 0, r.length);
+		else
+			M.apply(r, z);
+	}
+
+	// sets r = b - A x and returns |r| / |b|
+	protected double residual(double[] b, double[] x, double[] r) {
+		A.times(x, r);
+		for (int i = 0; i < r.length; i++)
+			r[i] = b[i] - r[i];
+		double bnorm = norm(b);
+		return norm(r) / (bnorm == 0 ? 1 : bnorm);
+	}
+}
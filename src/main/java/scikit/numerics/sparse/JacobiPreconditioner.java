@@ -0,0 +1,22 @@
+package scikit.numerics.sparse;
+
+/**
+ * The Jacobi, or diagonal, preconditioner M = diag(A).
+ */
+public class JacobiPreconditioner implements Preconditioner {
+	double[] inverse;
+
+	public JacobiPreconditioner(SparseMatrix A) {
+		inverse = A.diagonal();
+		for (int i = 0; i < inverse.length; i++) {
+			if (inverse[i] == 0)
+				throw new IllegalArgumentException("Diagonal element "+i+" is zero.");
+			inverse[i] = 1 / inverse[i];
+		}
+	}
+
+	public void apply(double[] r, double[] z) {
+		for (int i = 0; i < inverse.length; i++)
+			z[i] = inverse[i] * r[i];
+	}
+}
@@ -0,0 +1,10 @@
+package scikit.numerics.sparse;
+
+/**
+ * An approximate inverse M^-1 of a matrix, which an IterativeSolver applies to
+ * each residual.
+ */
+public interface Preconditioner {
+	/** Sets z = M^-1 r. The arrays must be distinct. */
+	public void apply(double[] r, double[] z);
+}
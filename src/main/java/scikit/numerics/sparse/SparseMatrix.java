@@ -0,0 +1,260 @@
+package scikit.numerics.sparse;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import scikit.numerics.Workers;
+import scikit.numerics.Jama.Matrix;
+
+/**
+ * A sparse matrix in compressed sparse row (CSR) form. The column indices and
+ * values of the nonzero elements of row i are index[p] and value[p] for
+ * start[i] <= p < start[i+1], sorted by column. transpose() builds the
+ * transpose in O(nonzeros); its arrays are also those of this matrix in
+ * compressed sparse column (CSC) form.
+ * <p>
+ * Products with vectors are distributed over the shared pool of
+ * scikit.numerics.Workers, whose size Workers.setThreads() sets, in blocks of
+ * rows with about GRAIN nonzeros each. Small dense
+ * blocks convert to and from Jama matrices with toMatrix(), getMatrix() and
+ * the Matrix constructor.
+ */
+public class SparseMatrix {
+	/** Nonzeros in a block of rows multiplied by one task. */
+	static final int GRAIN = 1 << 15;
+
+	int rows, cols;
+	int[] start, index;
+	double[] value;
+
+	/**
+	 * Creates a rows x cols matrix from count elements in coordinate form,
+	 * A(i[p], j[p]) = v[p]. Elements with the same coordinates are summed.
+	 */
+	public SparseMatrix(int rows, int cols, int[] i, int[] j, double[] v, int count) {
+		this.rows = rows;
+		this.cols = cols;
+		start = new int[rows+1];
+		for (int p = 0; p < count; p++) {
+			if (i[p] < 0 || i[p] >= rows || j[p] < 0 || j[p] >= cols)
+				throw new IllegalArgumentException("Element ("+i[p]+","+j[p]+") lies outside the "+rows+"x"+cols+" matrix.");
+			start[i[p]+1]++;
+		}
+		for (int r = 0; r < rows; r++)
+			start[r+1] += start[r];
+
+		// scatter into rows, then sort each row and sum duplicates in place
+		int[] next = Arrays.copyOf(start, rows);
+		int[] idx = new int[count];
+		double[] val = new double[count];
+		for (int p = 0; p < count; p++) {
+			int q = next[i[p]]++;
+			idx[q] = j[p];
+			val[q] = v[p];
+		}
+		int nnz = 0;
+		for (int r = 0; r < rows; r++) {
+			int lo = start[r], hi = start[r+1];
+			sortRow(idx, val, lo, hi);
+			start[r] = nnz;
+			for (int p = lo; p < hi; p++) {
+				if (nnz > start[r] && idx[nnz-1] == idx[p])
+					val[nnz-1] += val[p];
+				else {
+					idx[nnz] = idx[p];
+					val[nnz] = val[p];
+					nnz++;
+				}
+			}
+		}
+		start[rows] = nnz;
+		index = Arrays.copyOf(idx, nnz);
+		value = Arrays.copyOf(val, nnz);
+	}
+
+	/** Creates a sparse matrix from the nonzero elements of a dense one. */
+	public SparseMatrix(Matrix A) {
+		rows = A.getRowDimension();
+		cols = A.getColumnDimension();
+		start = new int[rows+1];
+		for (int r = 0; r < rows; r++)
+			for (int c = 0; c < cols; c++)
+				if (A.get(r, c) != 0)
+					start[r+1]++;
+		for (int r = 0; r < rows; r++)
+			start[r+1] += start[r];
+		index = new int[start[rows]];
+		value = new double[start[rows]];
+		for (int r = 0, p = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				double a = A.get(r, c);
+				if (a != 0) {
+					index[p] = c;
+					value[p++] = a;
+				}
+			}
+		}
+	}
+
+	private SparseMatrix(int rows, int cols, int[] start, int[] index, double[] value) {
+		this.rows = rows;
+		this.cols = cols;
+		this.start = start;
+		this.index = index;
+		this.value = value;
+	}
+
+	public int rows() {
+		return rows;
+	}
+
+	public int cols() {
+		return cols;
+	}
+
+	public int nonzeros() {
+		return start[rows];
+	}
+
+	/** Returns A(i, j), which is zero if it is not stored. */
+	public double get(int i, int j) {
+		if (j < 0 || j >= cols)
+			throw new IndexOutOfBoundsException("Column "+j+" of "+cols);
+		int p = Arrays.binarySearch(index, start[i], start[i+1], j);
+		return p < 0 ? 0 : value[p];
+	}
+
+	/** Returns the diagonal elements. */
+	public double[] diagonal() {
+		double[] ret = new double[Math.min(rows, cols)];
+		for (int i = 0; i < ret.length; i++)
+			ret[i] = get(i, i);
+		return ret;
+	}
+
+	/** Sets y = A x. The arrays must be distinct. */
+	public void times(double[] x, double[] y) {
+		if (x.length < cols || y.length < rows)
+			throw new IllegalArgumentException("Vector lengths do not match the "+rows+"x"+cols+" matrix.");
+		ForkJoinPool pool = Workers.pool();
+		if (pool == null || nonzeros() <= GRAIN)
+			times(x, y, 0, rows);
+		else
+			pool.invoke(new Rows(x, y, 0, rows));
+	}
+
+	/** Returns A x. */
+	public double[] times(double[] x) {
+		double[] y = new double[rows];
+		times(x, y);
+		return y;
+	}
+
+	/** Returns the dense product A X. */
+	public Matrix times(Matrix X) {
+		if (X.getRowDimension() != cols)
+			throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+		int n = X.getColumnDimension();
+		Matrix Y = new Matrix(rows, n);
+		double[][] y = Y.getArray();
+		for (int r = 0; r < rows; r++)
+			for (int p = start[r]; p < start[r+1]; p++)
+				for (int c = 0; c < n; c++)
+					y[r][c] += value[p] * X.get(index[p], c);
+		return Y;
+	}
+
+	/**
+	 * Returns the transpose, a new cols x rows matrix. Its start, index and value
+	 * arrays describe this matrix in compressed sparse column form.
+	 */
+	public SparseMatrix transpose() {
+		int[] tstart = new int[cols+1];
+		for (int p = 0; p < nonzeros(); p++)
+			tstart[index[p]+1]++;
+		for (int c = 0; c < cols; c++)
+			tstart[c+1] += tstart[c];
+		int[] next = Arrays.copyOf(tstart, cols);
+		int[] tindex = new int[nonzeros()];
+		double[] tvalue = new double[nonzeros()];
+		for (int r = 0; r < rows; r++) {
+			for (int p = start[r]; p < start[r+1]; p++) {
+				int q = next[index[p]]++;
+				tindex[q] = r;
+				tvalue[q] = value[p];
+			}
+		}
+		return new SparseMatrix(cols, rows, tstart, tindex, tvalue);
+	}
+
+	/** Returns the dense submatrix A(r, c). */
+	public Matrix getMatrix(int[] r, int[] c) {
+		Matrix X = new Matrix(r.length, c.length);
+		double[][] x = X.getArray();
+		for (int i = 0; i < r.length; i++)
+			for (int j = 0; j < c.length; j++)
+				x[i][j] = get(r[i], c[j]);
+		return X;
+	}
+
+	/** Returns the whole matrix in dense form. */
+	public Matrix toMatrix() {
+		Matrix X = new Matrix(rows, cols);
+		double[][] x = X.getArray();
+		for (int r = 0; r < rows; r++)
+			for (int p = start[r]; p < start[r+1]; p++)
+				x[r][index[p]] = value[p];
+		return X;
+	}
+
+	private void times(double[] x, double[] y, int lo, int hi) {
+		for (int r = lo; r < hi; r++) {
+			double s = 0;
+			for (int p = start[r]; p < start[r+1]; p++)
+				s += value[p] * x[index[p]];
+			y[r] = s;
+		}
+	}
+
+	// rows lo through hi-1 of y = A x, split in halves of equal nonzeros
+	@SuppressWarnings("serial")
+	private class Rows extends RecursiveAction {
+		double[] x, y;
+		int lo, hi;
+
+		Rows(double[] x, double[] y, int lo, int hi) {
+			this.x = x;
+			this.y = y;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo < 2 || start[hi] - start[lo] <= GRAIN) {
+				times(x, y, lo, hi);
+				return;
+			}
+			int mid = (start[lo] + start[hi]) >>> 1;
+			int r = Arrays.binarySearch(start, lo, hi, mid);
+			r = Math.min(Math.max(r < 0 ? -r-1 : r, lo+1), hi-1);
+			invokeAll(new Rows(x, y, lo, r), new Rows(x, y, r, hi));
+		}
+	}
+
+	// insertion sort of a row, which is usually short and nearly sorted
+	private static void sortRow(int[] idx, double[] val, int lo, int hi) {
+		for (int p = lo+1; p < hi; p++) {
+			int j = idx[p];
+			double v = val[p];
+			int q = p-1;
+			while (q >= lo && idx[q] > j) {
+				idx[q+1] = idx[q];
+				val[q+1] = val[q];
+				q--;
+			}
+			idx[q+1] = j;
+			val[q+1] = v;
+		}
+	}
+}
@@ -17,6 +17,8 @@ import java.io.PrintWriter;
 
 import javax.swing.JFileChooser;
 
+import scikit.dataset.DatasetBuffer;
+
 
 public class FileUtil {
 	
@@ -143,6 +145,15 @@ public class FileUtil {
 		}
     }
     
+    public static void writeColumns(PrintWriter pw, DatasetBuffer data) throws IOException {
+		for (int i = 0; i < data.size(); i++) {
+			pw.print(data.x(i) + " " + data.y(i) + " ");
+			if (data.hasErrorY())
+				pw.print(data.errorY(i) + " ");
+			pw.println();
+		}
+    }
+    
     public static void writeColumns(PrintWriter pw, double[] data, int cols) throws IOException {
     	if (cols < 1)
     		throw new IllegalArgumentException();
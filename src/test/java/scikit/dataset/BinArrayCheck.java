@@ -0,0 +1,53 @@
+package scikit.dataset;
+
+import java.util.Random;
+
+/**
+ * Compares the fixed width accumulator against the tree accumulator on the same
+ * stream of accum() calls. The copied data must be identical; the time taken by
+ * each is printed. Exits with status 1 if the data differ.
+ */
+public class BinArrayCheck {
+	static final int COUNT = 20000000;
+	static final int BINS = 1000;
+	static boolean failed = false;
+
+	public static void main(String[] args) {
+		double binWidth = 0.1;
+		Accumulator tree = new Accumulator(binWidth);
+		Accumulator fixed = new Accumulator(binWidth, true);
+		tree.enableErrorBars(true);
+		fixed.enableErrorBars(true);
+
+		// the first pass warms up both accumulators, the second is timed
+		for (int pass = 0; pass < 2; pass++) {
+			tree.clear();
+			fixed.clear();
+			double treeTime = run(tree, binWidth);
+			double fixedTime = run(fixed, binWidth);
+			if (pass == 1)
+				System.out.printf("%d accum() calls into %d bins: tree %.2fs, fixed width %.2fs%n",
+						COUNT, BINS, treeTime, fixedTime);
+		}
+		report("copyData", tree.copyData(), fixed.copyData());
+		System.exit(failed ? 1 : 0);
+	}
+
+	static double run(Accumulator acc, double binWidth) {
+		Random rand = new Random(0);
+		long start = System.nanoTime();
+		for (int i = 0; i < COUNT; i++) {
+			double x = binWidth*rand.nextInt(BINS) - 20;
+			acc.accum(x, rand.nextDouble());
+		}
+		return (System.nanoTime() - start) * 1e-9;
+	}
+
+	static void report(String name, DatasetBuffer a, DatasetBuffer b) {
+		boolean ok = a.size() == b.size();
+		for (int i = 0; ok && i < a.size(); i++)
+			ok = a.x(i) == b.x(i) && a.y(i) == b.y(i) && a.errorY(i) == b.errorY(i);
+		failed |= !ok;
+		System.out.printf("%-24s %d bins  %s%n", name, a.size(), ok ? "ok" : "FAILED");
+	}
+}
@@ -0,0 +1,92 @@
+package scikit.dataset;
+
+import java.util.Random;
+
+/**
+ * Times the concurrent accumulator fed by 1 to 32 threads, each accumulating an
+ * equal share of a fixed number of values, and checks the merged result against
+ * a single accumulator fed the same values serially. Also checks that blocking
+ * can be enabled before, and not after, the first values are accumulated. Exits
+ * with status 1 if any check fails.
+ */
+public class ConcurrentAccumulatorCheck {
+	static final double TOL = 1e-12;
+	static final int COUNT = 1 << 24;
+	static final int BINS = 1000;
+	static final double BIN_WIDTH = 0.1;
+	static boolean failed = false;
+
+	public static void main(String[] args) throws InterruptedException {
+		System.out.println(Runtime.getRuntime().availableProcessors() + " processors, " + COUNT + " accum() calls");
+		for (boolean fixedWidth : new boolean[] {false, true}) {
+			// the first run warms up
+			run(4, fixedWidth, false);
+			for (int threads = 1; threads <= 32; threads *= 2)
+				run(threads, fixedWidth, true);
+		}
+		checkBlocking();
+		System.exit(failed ? 1 : 0);
+	}
+
+	static void run(final int threads, boolean fixedWidth, boolean print) throws InterruptedException {
+		final ConcurrentAccumulator acc = new ConcurrentAccumulator(BIN_WIDTH, fixedWidth);
+		acc.enableErrorBars(true);
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int seed = t;
+			workers[t] = new Thread() {
+				public void run() {
+					Random rand = new Random(seed);
+					for (int i = 0; i < COUNT/threads; i++)
+						acc.accum(BIN_WIDTH*rand.nextInt(BINS), rand.nextDouble());
+				}
+			};
+		}
+		long start = System.nanoTime();
+		for (Thread w : workers)
+			w.start();
+		for (Thread w : workers)
+			w.join();
+		double time = (System.nanoTime() - start) * 1e-9;
+		if (!print)
+			return;
+
+		Accumulator ref = new Accumulator(BIN_WIDTH);
+		for (int t = 0; t < threads; t++) {
+			Random rand = new Random(t);
+			for (int i = 0; i < COUNT/threads; i++)
+				ref.accum(BIN_WIDTH*rand.nextInt(BINS), rand.nextDouble());
+		}
+		Accumulator merged = acc.merge();
+		double diff = 0;
+		boolean counts = merged.keys().equals(ref.keys());
+		for (double k : ref.keys()) {
+			counts &= merged.evalCount(k) == ref.evalCount(k);
+			diff = Math.max(diff, Math.abs(merged.eval(k) - ref.eval(k)) / Math.abs(ref.eval(k)));
+		}
+		report(String.format("%-10s %2d threads  %6.3fs  %6.1f M/s  merge %.1e",
+				fixedWidth ? "fixed" : "tree", threads, time, COUNT/threads*threads/time*1e-6, diff),
+				counts && diff < TOL);
+	}
+
+	static void checkBlocking() {
+		ConcurrentAccumulator acc = new ConcurrentAccumulator(BIN_WIDTH, true);
+		acc.enableBlocking(true);
+		acc.accum(0, 1);
+		acc.accum(0, 2);
+		boolean merged = acc.merge().evalBlockingErrors(0).length > 0;
+		boolean rejected = false;
+		try {
+			acc.enableBlocking(false);
+		}
+		catch (IllegalStateException e) {
+			rejected = true;
+		}
+		report("blocking enabled before accum, rejected after", merged && rejected);
+	}
+
+	static void report(String line, boolean ok) {
+		failed |= !ok;
+		System.out.println(line + "  " + (ok ? "ok" : "FAILED"));
+	}
+}
@@ -0,0 +1,200 @@
+package scikit.numerics.Jama;
+
+import java.util.Random;
+
+/** Checks the blocked LU and Cholesky factorizations against the original
+   unblocked JAMA algorithms, which are repeated here as the reference.
+<P>
+   Sizes on both sides of the blocking threshold of 256 are tested, and
+   rectangular matrices for LU.  The pivots and isSPD() must be identical; the
+   factors and determinants must agree to a relative tolerance of TOL.  Prints
+   one line per case and exits with status 1 if any case fails.
+*/
+
+public class BlockedFactorCheck {
+
+   static final double TOL = 1e-10;
+   static Random rand = new Random(0);
+   static boolean failed = false;
+
+   public static void main (String[] args) {
+      int[][] lu = {{255,255},{256,256},{300,300},{400,300},{300,256},{513,513}};
+      for (int[] d : lu) {
+         checkLU(d[0],d[1]);
+      }
+      int[] chol = {255,256,300,513};
+      for (int n : chol) {
+         checkCholesky("spd",spd(n));
+         Matrix B = spd(n);
+         B.set(n-1,n-1,-B.get(n-1,n-1));
+         checkCholesky("indefinite",B);
+         Matrix C = spd(n);
+         C.set(0,n-1,C.get(0,n-1)+1);
+         checkCholesky("nonsymmetric",C);
+      }
+      System.exit(failed ? 1 : 0);
+   }
+
+   static void checkLU (int m, int n) {
+      // scaled so that the determinant stays within range
+      Matrix A = random(m,n).times(1/Math.sqrt(n));
+      LUDecomposition lu = new LUDecomposition(A);
+      Reference ref = new Reference(A);
+      boolean pivots = java.util.Arrays.equals(lu.getPivot(),ref.piv);
+      double factors = Math.max(relDiff(lu.getL(),ref.getL()),relDiff(lu.getU(),ref.getU()));
+      double det = (m == n) ? Math.abs(lu.det()-ref.det())/Math.abs(ref.det()) : 0;
+      boolean ok = pivots && factors < TOL && det < TOL;
+      report("LU "+m+"x"+n+": pivots "+(pivots ? "equal" : "DIFFER")+
+             String.format(", factors %.1e, det %.1e",factors,det),ok);
+   }
+
+   static void checkCholesky (String kind, Matrix A) {
+      int n = A.getRowDimension();
+      CholeskyDecomposition chol = new CholeskyDecomposition(A);
+      double[][] L = referenceCholesky(A.getArray());
+      boolean spd = referenceSPD;
+      boolean same = chol.isSPD() == spd;
+      double factors = spd ? relDiff(chol.getL(),new Matrix(L)) : 0;
+      boolean ok = same && factors < TOL;
+      report("Cholesky "+n+" "+kind+": isSPD "+chol.isSPD()+(same ? "" : " DIFFERS")+
+             String.format(", factor %.1e",factors),ok);
+   }
+
+   static Matrix spd (int n) {
+      Matrix X = random(n,n);
+      return X.times(X.transpose()).plus(Matrix.identity(n,n).times(n));
+   }
+
+   static Matrix random (int m, int n) {
+      Matrix X = new Matrix(m,n);
+      for (int i = 0; i < m; i++) {
+         for (int j = 0; j < n; j++) {
+            X.set(i,j,rand.nextGaussian());
+         }
+      }
+      return X;
+   }
+
+   static double relDiff (Matrix X, Matrix Y) {
+      return X.minus(Y).normF()/Y.normF();
+   }
+
+   static void report (String line, boolean ok) {
+      failed |= !ok;
+      System.out.println(line+(ok ? "  ok" : "  FAILED"));
+   }
+
+/* ------------------------
+   Reference algorithms
+ * ------------------------ */
+
+   static boolean referenceSPD;
+
+   /** The unblocked JAMA Cholesky factor, setting referenceSPD. */
+
+   static double[][] referenceCholesky (double[][] A) {
+      int n = A.length;
+      double[][] L = new double[n][n];
+      boolean isspd = (A[0].length == n);
+      for (int j = 0; j < n; j++) {
+         double[] Lrowj = L[j];
+         double d = 0.0;
+         for (int k = 0; k < j; k++) {
+            double[] Lrowk = L[k];
+            double s = 0.0;
+            for (int i = 0; i < k; i++) {
+               s += Lrowk[i]*Lrowj[i];
+            }
+            Lrowj[k] = s = (A[j][k] - s)/L[k][k];
+            d = d + s*s;
+            isspd = isspd & (A[k][j] == A[j][k]);
+         }
+         d = A[j][j] - d;
+         isspd = isspd & (d > 0.0);
+         L[j][j] = Math.sqrt(Math.max(d,0.0));
+      }
+      referenceSPD = isspd;
+      return L;
+   }
+
+   /** The unblocked JAMA Crout LU decomposition. */
+
+   static class Reference {
+      double[][] LU;
+      int m, n, pivsign;
+      int[] piv;
+
+      Reference (Matrix A) {
+         LU = A.getArrayCopy();
+         m = A.getRowDimension();
+         n = A.getColumnDimension();
+         piv = new int[m];
+         for (int i = 0; i < m; i++) {
+            piv[i] = i;
+         }
+         pivsign = 1;
+         double[] LUrowi;
+         double[] LUcolj = new double[m];
+         for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+               LUcolj[i] = LU[i][j];
+            }
+            for (int i = 0; i < m; i++) {
+               LUrowi = LU[i];
+               int kmax = Math.min(i,j);
+               double s = 0.0;
+               for (int k = 0; k < kmax; k++) {
+                  s += LUrowi[k]*LUcolj[k];
+               }
+               LUrowi[j] = LUcolj[i] -= s;
+            }
+            int p = j;
+            for (int i = j+1; i < m; i++) {
+               if (Math.abs(LUcolj[i]) > Math.abs(LUcolj[p])) {
+                  p = i;
+               }
+            }
+            if (p != j) {
+               for (int k = 0; k < n; k++) {
+                  double t = LU[p][k]; LU[p][k] = LU[j][k]; LU[j][k] = t;
+               }
+               int k = piv[p]; piv[p] = piv[j]; piv[j] = k;
+               pivsign = -pivsign;
+            }
+            if (j < m & LU[j][j] != 0.0) {
+               for (int i = j+1; i < m; i++) {
+                  LU[i][j] /= LU[j][j];
+               }
+            }
+         }
+      }
+
+      Matrix getL () {
+         Matrix X = new Matrix(m,n);
+         for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+               X.set(i,j,(i > j) ? LU[i][j] : (i == j) ? 1.0 : 0.0);
+            }
+         }
+         return X;
+      }
+
+      Matrix getU () {
+         Matrix X = new Matrix(n,n);
+         for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+               X.set(i,j,LU[i][j]);
+            }
+         }
+         return X;
+      }
+
+      double det () {
+         double d = (double) pivsign;
+         for (int j = 0; j < n; j++) {
+            d *= LU[j][j];
+         }
+         return d;
+      }
+   }
+}
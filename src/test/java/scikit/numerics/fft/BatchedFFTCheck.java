@@ -0,0 +1,225 @@
+package scikit.numerics.fft;
+
+import java.util.Random;
+
+import scikit.numerics.fn.Function2D;
+import scikit.numerics.fn.Function3D;
+
+/**
+ * Checks the managed 2D and 3D transforms on square and non-square grids, in full
+ * and half spectrum mode: the single field transform, and the spectrum visited by
+ * transform(src, fn), against a direct DFT; the batched transform against the
+ * single field results; and the batched and direct convolutions against single
+ * field convolutions, in full spectrum mode where the kernel allows. Prints the largest differences and
+ * exits with status 1 if any exceeds the tolerance.
+ */
+public class BatchedFFTCheck {
+	static final double TOL = 1e-10;
+	static Random rand = new Random(0);
+	static boolean failed = false;
+
+	public static void main(String[] args) {
+		// half spectrum mode requires even dim1
+		int[][] sizes2 = {{8, 8}, {8, 4}, {4, 6}, {6, 10}};
+		int[][] sizes3 = {{4, 4, 4}, {8, 4, 6}, {4, 6, 8}, {6, 2, 4}};
+		for (boolean half : new boolean[] {false, true}) {
+			for (int[] d : sizes2)
+				check2D(d[0], d[1], half);
+			for (int[] d : sizes3)
+				check3D(d[0], d[1], d[2], half);
+		}
+		System.exit(failed ? 1 : 0);
+	}
+
+	static Function2D[] fns2 = {
+		new Function2D() {
+			public double eval(double k1, double k2) {
+				return Math.cos(k1 + 2*k2);
+			}
+		},
+		new Function2D() {
+			public double eval(double k1, double k2) {
+				return 1/(1 + k1*k1 + 2*k2*k2);
+			}
+		},
+		new Function2D() {
+			public double eval(double k1, double k2) {
+				return Math.exp(-k1*k1 - k2*k2);
+			}
+		},
+	};
+
+	static void check2D(int dim1, int dim2, boolean half) {
+		FFT2D fft = new FFT2D(dim1, dim2, half);
+		// the reference for convolutions in half spectrum mode
+		FFT2D full = half ? new FFT2D(dim1, dim2) : fft;
+		fft.setLengths(dim1*0.5, dim2*1.5);
+		full.setLengths(dim1*0.5, dim2*1.5);
+		final double L1 = dim1*0.5, L2 = dim2*1.5;
+		final int n = dim1*dim2;
+		double[][] src = fields(3, n);
+
+		double[] single = new double[2*n];
+		fft.transform(src[0], single);
+		final double[] ref0 = dft(src[0], new int[] {dim1, dim2}, 0.5*1.5);
+		double dft = maxDiff(single, ref0);
+		final int d1 = dim1, d2 = dim2;
+		final double[] map = new double[1];
+		fft.transform(src[0], new FFT2D.MapFn() {
+			public void apply(double k1, double k2, double re, double im) {
+				int i = index(k1*L1, d1) + d1*index(k2*L2, d2);
+				map[0] = Math.max(map[0], Math.max(Math.abs(re - ref0[2*i]), Math.abs(im - ref0[2*i+1])));
+			}
+		});
+		dft = Math.max(dft, map[0]);
+
+		double[][] batched = new double[3][2*n];
+		fft.transform(src, batched);
+		double transform = 0;
+		for (int f = 0; f < 3; f++) {
+			fft.transform(src[f], single);
+			transform = Math.max(transform, maxDiff(single, batched[f]));
+		}
+
+		ConvolutionPlan[] plans = new ConvolutionPlan[3];
+		double[][] ref = new double[3][n];
+		for (int f = 0; f < 3; f++) {
+			plans[f] = fft.plan(fns2[f], f > 0);
+			// kernel 0 is not even in each k separately, so it takes different
+			// values at the Nyquist wavenumbers in the two modes
+			FFT2D r = (f == 0) ? fft : full;
+			r.convolve(src[f], ref[f], r.plan(fns2[f], f > 0));
+		}
+		double[][] conv = new double[3][n];
+		fft.convolve(src, conv, plans);
+		double[] direct = new double[n];
+		double convolve = 0;
+		for (int f = 0; f < 3; f++) {
+			convolve = Math.max(convolve, maxDiff(ref[f], conv[f]));
+			fft.convolve(src[f], direct, fns2[f]);
+			convolve = Math.max(convolve, maxDiff(ref[f], direct));
+		}
+		report("FFT2D "+dim1+"x"+dim2+(half ? " half" : ""), dft, transform, convolve);
+	}
+
+	static Function3D[] fns3 = {
+		new Function3D() {
+			public double eval(double k1, double k2, double k3) {
+				return Math.cos(k1 + 2*k2 - k3);
+			}
+		},
+		new Function3D() {
+			public double eval(double k1, double k2, double k3) {
+				return 1/(1 + k1*k1 + 2*k2*k2 + 3*k3*k3);
+			}
+		},
+		new Function3D() {
+			public double eval(double k1, double k2, double k3) {
+				return Math.exp(-k1*k1 - k2*k2 - k3*k3);
+			}
+		},
+	};
+
+	static void check3D(int dim1, int dim2, int dim3, boolean half) {
+		FFT3DManaged fft = new FFT3DManaged(dim1, dim2, dim3, half);
+		FFT3DManaged full = half ? new FFT3DManaged(dim1, dim2, dim3) : fft;
+		fft.setLengths(dim1*0.5, dim2*1.5, dim3*2.0);
+		full.setLengths(dim1*0.5, dim2*1.5, dim3*2.0);
+		final double L1 = dim1*0.5, L2 = dim2*1.5, L3 = dim3*2.0;
+		final int n = dim1*dim2*dim3;
+		double[][] src = fields(3, n);
+
+		double[] single = new double[2*n];
+		fft.transform(src[0], single);
+		final double[] ref0 = dft(src[0], new int[] {dim1, dim2, dim3}, 0.5*1.5*2.0);
+		double dft = maxDiff(single, ref0);
+		final int d1 = dim1, d2 = dim2, d3 = dim3;
+		final double[] map = new double[1];
+		fft.transform(src[0], new FFT3D.MapFn() {
+			public void apply(double k1, double k2, double k3, double re, double im) {
+				int i = index(k1*L1, d1) + d1*index(k2*L2, d2) + d1*d2*index(k3*L3, d3);
+				map[0] = Math.max(map[0], Math.max(Math.abs(re - ref0[2*i]), Math.abs(im - ref0[2*i+1])));
+			}
+		});
+		dft = Math.max(dft, map[0]);
+
+		double[][] batched = new double[3][2*n];
+		fft.transform(src, batched);
+		double transform = 0;
+		for (int f = 0; f < 3; f++) {
+			fft.transform(src[f], single);
+			transform = Math.max(transform, maxDiff(single, batched[f]));
+		}
+
+		ConvolutionPlan[] plans = new ConvolutionPlan[3];
+		double[][] ref = new double[3][n];
+		for (int f = 0; f < 3; f++) {
+			plans[f] = fft.plan(fns3[f], f > 0);
+			// kernel 0 is not even in each k separately, so it takes different
+			// values at the Nyquist wavenumbers in the two modes
+			FFT3DManaged r = (f == 0) ? fft : full;
+			r.convolve(src[f], ref[f], r.plan(fns3[f], f > 0));
+		}
+		double[][] conv = new double[3][n];
+		fft.convolve(src, conv, plans);
+		double[] direct = new double[n];
+		double convolve = 0;
+		for (int f = 0; f < 3; f++) {
+			convolve = Math.max(convolve, maxDiff(ref[f], conv[f]));
+			fft.convolve(src[f], direct, fns3[f]);
+			convolve = Math.max(convolve, maxDiff(ref[f], direct));
+		}
+		report("FFT3DManaged "+dim1+"x"+dim2+"x"+dim3+(half ? " half" : ""), dft, transform, convolve);
+	}
+
+	// the wraparound index of the wavenumber with k*L = 2 pi x
+	static int index(double kL, int dim) {
+		int x = (int)Math.rint(kL/(2*Math.PI));
+		return (x%dim + dim)%dim;
+	}
+
+	// the direct DFT, times scale, of real data indexed with the first dimension
+	// varying fastest, in interleaved complex wraparound order
+	static double[] dft(double[] x, int[] dims, double scale) {
+		int n = x.length;
+		double[] ret = new double[2*n];
+		for (int k = 0; k < n; k++) {
+			double re = 0, im = 0;
+			for (int i = 0; i < n; i++) {
+				double phase = 0;
+				for (int d = 0, ki = k, ii = i; d < dims.length; d++) {
+					phase += (double)(ki % dims[d]) * (ii % dims[d]) / dims[d];
+					ki /= dims[d];
+					ii /= dims[d];
+				}
+				re += x[i]*Math.cos(2*Math.PI*phase);
+				im -= x[i]*Math.sin(2*Math.PI*phase);
+			}
+			ret[2*k+0] = scale*re;
+			ret[2*k+1] = scale*im;
+		}
+		return ret;
+	}
+
+	static double[][] fields(int count, int n) {
+		double[][] ret = new double[count][n];
+		for (double[] f : ret)
+			for (int i = 0; i < n; i++)
+				f[i] = rand.nextGaussian();
+		return ret;
+	}
+
+	static double maxDiff(double[] a, double[] b) {
+		double ret = 0;
+		for (int i = 0; i < a.length; i++)
+			ret = Math.max(ret, Math.abs(a[i] - b[i]));
+		return ret;
+	}
+
+	static void report(String name, double dft, double transform, double convolve) {
+		boolean ok = dft < TOL && transform < TOL && convolve < TOL;
+		failed |= !ok;
+		System.out.printf("%-29s dft %.1e  batched transform %.1e  batched convolve %.1e  %s%n",
+				name, dft, transform, convolve, ok ? "ok" : "FAILED");
+	}
+}
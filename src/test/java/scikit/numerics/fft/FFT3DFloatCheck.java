@@ -0,0 +1,157 @@
+package scikit.numerics.fft;
+
+import java.util.Random;
+
+import scikit.numerics.fft.managed.ComplexDoubleFFT;
+import scikit.numerics.fft.managed.ComplexFloatFFT;
+import scikit.numerics.fft.managed.PlanWisdom;
+import scikit.numerics.fn.Function3D;
+
+/**
+ * Checks the single precision transforms against their double precision
+ * counterparts: ComplexFloatFFT against ComplexDoubleFFT, and FFT3DFloat against
+ * a half spectrum FFT3DManaged, for the spectrum visited by transform(src, fn) and
+ * for convolutions with a function and with a plan, from float and double fields.
+ * Differences are relative to the largest value of the double precision result.
+ * Also prints the convolution times of both 3D transforms. Exits with status 1 if
+ * any difference exceeds the tolerance.
+ */
+public class FFT3DFloatCheck {
+	static final double TOL = 1e-6;
+	static Random rand = new Random(0);
+	static boolean failed = false;
+
+	static Function3D kernel = new Function3D() {
+		public double eval(double k1, double k2, double k3) {
+			return Math.exp(-0.1*(k1*k1 + 2*k2*k2 + 3*k3*k3));
+		}
+	};
+
+	public static void main(String[] args) {
+		int[] lengths = {60, 1024, 4096, 1 << 16};
+		for (int n : lengths)
+			check1D(n);
+		int[][] sizes = {{8, 8, 8}, {16, 8, 12}, {6, 10, 4}, {64, 32, 48}};
+		for (int[] d : sizes)
+			check3D(d[0], d[1], d[2]);
+		int[] timed = {64, 128};
+		for (int n : timed)
+			time(n);
+		System.exit(failed ? 1 : 0);
+	}
+
+	static void check1D(int n) {
+		double[] data = random(2*n);
+		float[] single = toFloat(data);
+		ComplexDoubleFFT.forLength(n).transform(data);
+		new ComplexFloatFFT(n).transform(single);
+		double forward = relDiff(single, data);
+		ComplexDoubleFFT.forLength(n).backtransform(data);
+		new ComplexFloatFFT(n).backtransform(single);
+		double backward = relDiff(single, data);
+		report(String.format("%-24s forward %.1e  backward %.1e", "ComplexFloatFFT "+n, forward, backward),
+				Math.max(forward, backward));
+	}
+
+	static void check3D(int dim1, int dim2, int dim3) {
+		int n = dim1*dim2*dim3;
+		FFT3DFloat fft = new FFT3DFloat(dim1, dim2, dim3);
+		FFT3DManaged ref = new FFT3DManaged(dim1, dim2, dim3, true);
+		fft.setLengths(dim1*0.5, dim2*1.5, dim3*2.0);
+		ref.setLengths(dim1*0.5, dim2*1.5, dim3*2.0);
+		double[] src = random(n);
+		float[] srcf = toFloat(src);
+
+		// both visit the half spectrum in the same order
+		int h = (dim1/2+1)*dim2*dim3;
+		double[] expected = spectrum(ref, src, h);
+		double spectrum = Math.max(relDiff(spectrum(fft, src, h), expected),
+				relDiff(spectrum(fft, srcf, h), expected));
+
+		double[] conv = new double[n];
+		ref.convolve(src, conv, kernel);
+		double[] dst = new double[n];
+		float[] dstf = new float[n];
+		fft.convolve(src, dst, kernel);
+		fft.convolve(srcf, dstf, kernel);
+		double convolve = Math.max(relDiff(dst, conv), relDiff(dstf, conv));
+		ConvolutionPlan plan = fft.plan(kernel, true);
+		fft.convolve(src, dst, plan);
+		fft.convolve(srcf, dstf, plan);
+		double planned = Math.max(relDiff(dst, conv), relDiff(dstf, conv));
+
+		report(String.format("%-24s spectrum %.1e  convolve %.1e  plan %.1e",
+				"FFT3DFloat "+dim1+"x"+dim2+"x"+dim3, spectrum, convolve, planned),
+				Math.max(spectrum, Math.max(convolve, planned)));
+	}
+
+	static void time(int dim) {
+		final FFT3DFloat fft = new FFT3DFloat(dim, dim, dim);
+		final FFT3DManaged ref = new FFT3DManaged(dim, dim, dim, true);
+		final double[] src = random(dim*dim*dim);
+		final float[] srcf = toFloat(src);
+		final ConvolutionPlan plan = fft.plan(kernel, true);
+		final ConvolutionPlan refPlan = ref.plan(kernel, true);
+		double single = PlanWisdom.time(new Runnable() {
+			public void run() { fft.convolve(srcf, srcf, plan); }
+		});
+		double dbl = PlanWisdom.time(new Runnable() {
+			public void run() { ref.convolve(src, src, refPlan); }
+		});
+		System.out.printf("convolve %d^3: FFT3DFloat %.1f ms, FFT3DManaged half spectrum %.1f ms%n",
+				dim, 1e3*single, 1e3*dbl);
+	}
+
+	static double[] spectrum(FFT3D fft, Object src, int h) {
+		final double[] ret = new double[2*h];
+		FFT3D.MapFn fn = new FFT3D.MapFn() {
+			int i = 0;
+			public void apply(double k1, double k2, double k3, double re, double im) {
+				ret[i++] = re;
+				ret[i++] = im;
+			}
+		};
+		if (src instanceof float[])
+			((FFT3DFloat)fft).transform((float[])src, fn);
+		else
+			fft.transform((double[])src, fn);
+		return ret;
+	}
+
+	// the largest difference between a and b, relative to the largest value of b
+	static double relDiff(double[] a, double[] b) {
+		double diff = 0, max = 0;
+		for (int i = 0; i < a.length; i++) {
+			diff = Math.max(diff, Math.abs(a[i] - b[i]));
+			max = Math.max(max, Math.abs(b[i]));
+		}
+		return diff / max;
+	}
+
+	static double relDiff(float[] a, double[] b) {
+		double[] ad = new double[a.length];
+		for (int i = 0; i < a.length; i++)
+			ad[i] = a[i];
+		return relDiff(ad, b);
+	}
+
+	static float[] toFloat(double[] a) {
+		float[] ret = new float[a.length];
+		for (int i = 0; i < a.length; i++)
+			ret[i] = (float)a[i];
+		return ret;
+	}
+
+	static double[] random(int n) {
+		double[] ret = new double[n];
+		for (int i = 0; i < n; i++)
+			ret[i] = rand.nextGaussian();
+		return ret;
+	}
+
+	static void report(String line, double diff) {
+		boolean ok = diff < TOL;
+		failed |= !ok;
+		System.out.println(line + "  " + (ok ? "ok" : "FAILED"));
+	}
+}
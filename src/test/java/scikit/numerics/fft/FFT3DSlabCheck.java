@@ -0,0 +1,65 @@
+package scikit.numerics.fft;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import scikit.numerics.fn.Function3D;
+
+/**
+ * Checks FFT3DSlab against FFT3DManaged, with the given number of processes on the
+ * local host: FFT3DSlabCheck processes dim [port]. The first process starts the
+ * others, which connect at consecutive ports, and each prints its largest error.
+ */
+public class FFT3DSlabCheck {
+	public static void main(String[] args) throws Exception {
+		int procs = Integer.parseInt(args[0]);
+		int dim = Integer.parseInt(args[1]);
+		int port = args.length > 2 ? Integer.parseInt(args[2]) : 47000;
+		int rank = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+		List<Process> children = new ArrayList<Process>();
+		if (args.length <= 3) {
+			String java = System.getProperty("java.home")+File.separator+"bin"+File.separator+"java";
+			for (int q = 1; q < procs; q++) {
+				ProcessBuilder pb = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+						FFT3DSlabCheck.class.getName(), ""+procs, ""+dim, ""+port, ""+q);
+				children.add(pb.inheritIO().start());
+			}
+		}
+
+		SocketExchange exchange = new SocketExchange(rank, SocketExchange.localhost(procs, port));
+		FFT3DSlab fft = new FFT3DSlab(dim, dim, dim, exchange);
+		fft.setLengths(dim, dim, dim);
+		Function3D fn = new Function3D() {
+			public double eval(double k1, double k2, double k3) {
+				return Math.exp(-(k1*k1 + k2*k2 + k3*k3));
+			}
+		};
+
+		double[] field = new double[dim*dim*dim];
+		Random r = new Random(0);
+		for (int i = 0; i < field.length; i++)
+			field[i] = r.nextGaussian();
+		double[] slab = new double[fft.slabLength()];
+		System.arraycopy(field, fft.firstPlane()*dim*dim, slab, 0, slab.length);
+
+		long t = System.nanoTime();
+		fft.convolve(slab, slab, fft.plan(fn));
+		t = System.nanoTime() - t;
+
+		FFT3D ref = new FFT3DManaged(dim, dim, dim, true);
+		ref.setLengths(dim, dim, dim);
+		ref.convolve(field, field, fn);
+		double err = 0;
+		for (int i = 0; i < slab.length; i++)
+			err = Math.max(err, Math.abs(slab[i] - field[fft.firstPlane()*dim*dim + i]));
+		System.out.println("FFT3DSlab | rank "+rank+" of "+procs+": convolved "+dim+"^3 in "+
+				t/1000000+" ms, max error "+err);
+
+		exchange.close();
+		for (Process p : children)
+			p.waitFor();
+	}
+}
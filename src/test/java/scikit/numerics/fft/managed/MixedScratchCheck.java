@@ -0,0 +1,141 @@
+package scikit.numerics.fft.managed;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Benchmarks the scratch reuse of ComplexDoubleFFT_Mixed, in the manner of a JMH
+ * harness: each case runs warmup iterations, then measured iterations of a fixed
+ * duration, and prints the mean and deviation of the time per transform along
+ * with the bytes allocated per transform. The baseline repeats each transform
+ * with the double[2n] allocation which the plan used to make per call. Also
+ * checks that a plan shared between threads gives the same results as a plan
+ * used by one thread, and that a reused plan allocates nothing. Exits with
+ * status 1 if any check fails.
+ */
+public class MixedScratchCheck {
+	static final int WARMUP = 5, ITERATIONS = 10;
+	static final long ITERATION_NS = 200000000;
+	static final long MAX_BYTES = 16; // allowed allocation per transform, for noise
+	static com.sun.management.ThreadMXBean bean =
+		(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+	static Random rand = new Random(0);
+	static boolean failed = false;
+	static double[] sink;
+
+	public static void main(String[] args) throws InterruptedException {
+		int[] lengths = {96, 1000, 6561, 15625};
+		for (int n : lengths) {
+			final ComplexDoubleFFT_Mixed fft = new ComplexDoubleFFT_Mixed(n);
+			final double[] data = random(2*n);
+			final int len = n;
+			Result reused = measure(new Runnable() {
+				public void run() {
+					fft.transform(data);
+					fft.backtransform(data);
+				}
+			});
+			Result allocating = measure(new Runnable() {
+				public void run() {
+					sink = new double[2*len];
+					fft.transform(data);
+					sink = new double[2*len];
+					fft.backtransform(data);
+				}
+			});
+			report(String.format("Mixed %6d  reused %9.0f +- %6.0f ns %6d B  allocating %9.0f +- %6.0f ns %6d B",
+					n, reused.ns, reused.err, reused.bytes, allocating.ns, allocating.err, allocating.bytes),
+					reused.bytes <= MAX_BYTES);
+		}
+
+		final ComplexDouble3DFFT fft3 = new ComplexDouble3DFFT(60, 60, 60);
+		final double[] data3 = random(2*60*60*60);
+		Result r3 = measure(new Runnable() {
+			public void run() {
+				fft3.transform(data3);
+				fft3.backtransform(data3);
+			}
+		});
+		System.out.printf("3D 60x60x60   %9.0f +- %6.0f ns %6d B%n", r3.ns, r3.err, r3.bytes);
+
+		checkShared(1000, 4);
+		System.exit(failed ? 1 : 0);
+	}
+
+	// transforms the same lines with one plan from several threads at once
+	static void checkShared(final int n, int threads) throws InterruptedException {
+		final ComplexDoubleFFT_Mixed fft = new ComplexDoubleFFT_Mixed(n);
+		final double[][] lines = new double[threads][];
+		final double[][] expected = new double[threads][];
+		for (int t = 0; t < threads; t++) {
+			lines[t] = random(2*n);
+			expected[t] = lines[t].clone();
+			for (int r = 0; r < 100; r++)
+				new ComplexDoubleFFT_Mixed(n).transform(expected[t]);
+		}
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final double[] line = lines[t];
+			workers[t] = new Thread() {
+				public void run() {
+					for (int r = 0; r < 100; r++)
+						fft.transform(line);
+				}
+			};
+			workers[t].start();
+		}
+		for (Thread w : workers)
+			w.join();
+		boolean ok = true;
+		for (int t = 0; t < threads; t++)
+			ok &= java.util.Arrays.equals(lines[t], expected[t]);
+		report("Mixed "+n+" plan shared by "+threads+" threads", ok);
+	}
+
+	static class Result {
+		double ns, err;
+		long bytes;
+	}
+
+	// runs op for WARMUP and then ITERATIONS iterations of ITERATION_NS each, and
+	// returns the time and allocation per transform, an op being two transforms
+	static Result measure(Runnable op) {
+		double[] times = new double[ITERATIONS];
+		long ops = 0, bytes = 0;
+		for (int it = -WARMUP; it < ITERATIONS; it++) {
+			long count = 0;
+			long b0 = bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			long start = System.nanoTime(), now;
+			do {
+				op.run();
+				count++;
+			} while ((now = System.nanoTime()) - start < ITERATION_NS);
+			long b1 = bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			if (it >= 0) {
+				times[it] = (double)(now - start) / (2*count);
+				ops += 2*count;
+				bytes += b1 - b0;
+			}
+		}
+		Result ret = new Result();
+		for (double t : times)
+			ret.ns += t / ITERATIONS;
+		for (double t : times)
+			ret.err += (t - ret.ns)*(t - ret.ns) / (ITERATIONS - 1);
+		ret.err = Math.sqrt(ret.err);
+		ret.bytes = bytes / ops;
+		return ret;
+	}
+
+	static double[] random(int n) {
+		double[] ret = new double[n];
+		for (int i = 0; i < n; i++)
+			ret[i] = rand.nextGaussian();
+		return ret;
+	}
+
+	static void report(String line, boolean ok) {
+		failed |= !ok;
+		System.out.println(line + "  " + (ok ? "ok" : "FAILED"));
+	}
+}
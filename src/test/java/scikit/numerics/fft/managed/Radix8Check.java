@@ -0,0 +1,92 @@
+package scikit.numerics.fft.managed;
+
+import java.util.Random;
+
+/**
+ * Checks ComplexDoubleFFT_Radix8 against ComplexDoubleFFT_Mixed for n = 2^8 to
+ * 2^22: forward and backward transforms of contiguous data, and forward and
+ * backward transforms of strided data, which must leave the elements between
+ * the strided values untouched. Differences are relative to the largest
+ * coefficient. Also prints the forward transform times of both, as measured by
+ * PlanWisdom. Exits with status 1 if any difference exceeds the tolerance.
+ */
+public class Radix8Check {
+	static final double TOL = 1e-12;
+	static final int I0 = 2, STRIDE = 4; // the strided layout, in doubles
+	static Random rand = new Random(0);
+	static boolean failed = false;
+
+	public static void main(String[] args) {
+		System.out.printf("%-8s %9s %9s %9s %9s %9s %9s%n", "n", "forward", "backward",
+				"strided", "untouched", "mixed ms", "radix8 ms");
+		for (int log = 8; log <= 22; log++)
+			check(1 << log);
+		System.exit(failed ? 1 : 0);
+	}
+
+	static void check(int n) {
+		final ComplexDoubleFFT_Mixed mixed = new ComplexDoubleFFT_Mixed(n);
+		final ComplexDoubleFFT_Radix8 radix8 = new ComplexDoubleFFT_Radix8(n);
+
+		double[] data = random(2*n);
+		double[] a = data.clone(), b = data.clone();
+		mixed.transform(a);
+		radix8.transform(b);
+		double forward = relDiff(a, b);
+		a = data.clone();
+		b = data.clone();
+		mixed.backtransform(a);
+		radix8.backtransform(b);
+		double backward = relDiff(a, b);
+		data = null;
+
+		double[] strided = random(STRIDE*n + I0);
+		a = strided.clone();
+		b = strided.clone();
+		mixed.transform(a, I0, STRIDE);
+		radix8.transform(b, I0, STRIDE);
+		double stridedDiff = relDiff(a, b);
+		mixed.backtransform(a, I0, STRIDE);
+		radix8.backtransform(b, I0, STRIDE);
+		stridedDiff = Math.max(stridedDiff, relDiff(a, b));
+		boolean untouched = true;
+		for (int i = 0; i < strided.length; i++) {
+			boolean gap = i < I0 || (i - I0) % STRIDE >= 2;
+			if (gap && b[i] != strided[i])
+				untouched = false;
+		}
+		strided = a = b = null;
+
+		final double[] buffer = random(2*n);
+		double mixedTime = PlanWisdom.time(new Runnable() {
+			public void run() { mixed.transform(buffer); }
+		});
+		double radix8Time = PlanWisdom.time(new Runnable() {
+			public void run() { radix8.transform(buffer); }
+		});
+
+		boolean ok = forward < TOL && backward < TOL && stridedDiff < TOL && untouched;
+		failed |= !ok;
+		System.out.printf("2^%-6d %9.1e %9.1e %9.1e %9s %9.3f %9.3f  %s%n",
+				Integer.numberOfTrailingZeros(n), forward, backward, stridedDiff,
+				untouched ? "yes" : "NO", 1e3*mixedTime, 1e3*radix8Time, ok ? "ok" : "FAILED");
+	}
+
+	// the largest difference between the values of a and b, relative to the
+	// largest value of b
+	static double relDiff(double[] a, double[] b) {
+		double diff = 0, max = 0;
+		for (int i = 0; i < a.length; i++) {
+			diff = Math.max(diff, Math.abs(a[i] - b[i]));
+			max = Math.max(max, Math.abs(b[i]));
+		}
+		return diff / max;
+	}
+
+	static double[] random(int n) {
+		double[] ret = new double[n];
+		for (int i = 0; i < n; i++)
+			ret[i] = rand.nextGaussian();
+		return ret;
+	}
+}